@@ -0,0 +1,53 @@
+package rekoder.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rekoder.primitive.Problem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProblemJsonBenchmark {
+    @Param({"1000", "20000"})
+    public int statementLength;
+
+    @Param({"3"})
+    public int examples;
+
+    private Problem problem;
+
+    @Setup
+    public void setUp() {
+        StringBuilder statement = new StringBuilder();
+        while (statement.length() < statementLength) {
+            statement.append("<p>Given $$$n$$$ integers \"a_i\", print their sum.</p>\n");
+        }
+        List<Problem.Test> tests = new ArrayList<>();
+        for (int i = 0; i < examples; i++) {
+            tests.add(new Problem.Test("3\n1 2 " + i + "\n", (3 + i) + "\n"));
+        }
+        problem = new Problem("A + B", statement.toString(), "<p>The first line contains $$$n$$$.</p>",
+                "<p>Print one integer.</p>", tests, "Codeforces Round #1", "https://codeforces.com/contest/1/problem/A");
+    }
+
+    @Benchmark
+    public String addProblemBody() {
+        return RekoderApiOnline.toJson(problem);
+    }
+}
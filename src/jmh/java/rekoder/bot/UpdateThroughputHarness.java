@@ -0,0 +1,234 @@
+package rekoder.bot;
+
+import rekoder.api.RekoderApi;
+import rekoder.api.RekoderApiOnline;
+import rekoder.bot.judges.CodeforcesInteractor;
+import rekoder.bot.judges.JudgeInteractor;
+import rekoder.primitive.Problem;
+import rekoder.stub.BackendStubServer;
+import rekoder.stub.CodeforcesStubServer;
+import rekoder.util.Config;
+import rekoder.util.Metrics;
+import rekoder.util.UnsupportedPageFormat;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Runs one RekoderBot update against in-process Codeforces and backend stubs, e.g.
+// java -Drekoder.bench.contests=200 -cp target/benchmarks.jar rekoder.bot.UpdateThroughputHarness
+public class UpdateThroughputHarness {
+    public static void main(String[] args) throws Exception {
+        int contests = Config.getInt("rekoder.bench.contests", 200);
+        int problemsPerContest = Math.min(26, Config.getInt("rekoder.bench.problemsPerContest", 6));
+        int judgeLatencyMillis = Config.getInt("rekoder.bench.judgeLatencyMillis", 50);
+        int apiLatencyMillis = Config.getInt("rekoder.bench.apiLatencyMillis", 20);
+        double errorRate = Config.getDouble("rekoder.bench.errorRate", 0.005);
+        double throttleRate = Config.getDouble("rekoder.bench.throttleRate", 0.005);
+        boolean compressResponses = Config.getBoolean("rekoder.bench.compressResponses", true);
+        // the stubs are local, so judge politeness limits would only measure the limiter
+        System.getProperties().putIfAbsent("rekoder.http.requestsPerSecond", "1000");
+        System.getProperties().putIfAbsent("rekoder.http.requestBurst", "64");
+        System.getProperties().putIfAbsent("rekoder.judge.maxRequestsPerHost", "16");
+
+        Logger logger = Logger.getLogger("rekoder.bench");
+        logger.setLevel(Level.WARNING);
+        Logger.getGlobal().setLevel(Level.WARNING);
+
+        Path stateDir = Files.createTempDirectory("rekoder-bench");
+        System.setProperty("rekoder.stateDir", stateDir.toString());
+        System.setProperty("rekoder.scheduler.enabled", "false");
+        try (CodeforcesStubServer judge = new CodeforcesStubServer(contests, problemsPerContest, judgeLatencyMillis, errorRate, throttleRate);
+             BackendStubServer backend = new BackendStubServer(apiLatencyMillis, errorRate, throttleRate)) {
+            judge.setCompressResponses(compressResponses);
+            backend.setCompressResponses(compressResponses);
+            System.setProperty("rekoder.codeforces.url", judge.getUrl());
+            System.setProperty("rekoder.api.url", backend.getUrl());
+
+            Stages stages = new Stages();
+            JudgeInteractor interactor = new TimedJudgeInteractor(new CodeforcesInteractor(logger), logger, stages);
+            RekoderBot bot = new RekoderBot(List.of(interactor), () -> new TimedRekoderApi(new RekoderApiOnline(logger), stages), logger);
+            HeapSampler heap = new HeapSampler();
+            heap.start();
+            long start = System.nanoTime();
+            UpdatePipeline.Summary summary;
+            bot.start();
+            try {
+                summary = bot.runUpdate(interactor.getName());
+            } finally {
+                bot.stop();
+            }
+            if (summary == null) {
+                throw new IllegalStateException("Update failed, see the log");
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            heap.interrupt();
+            heap.join();
+
+            System.out.printf("Problems: %d in %.2f s, %.1f problems/s (%s)%n",
+                    judge.getProblemCount(), seconds, summary.fetched / seconds, summary);
+            System.out.printf("Peak heap used: %.1f MB%n", heap.peakBytes.get() / (1024.0 * 1024.0));
+            System.out.println(stages.report());
+            System.out.println(Metrics.getStats());
+            System.out.println("Judge stub: " + judge.getStats());
+            System.out.println("Backend stub: " + backend.getStats());
+        }
+    }
+
+    private static class Stages {
+        private final Map<String, List<Long>> latencies = new TreeMap<>();
+
+        <T> T time(String stage, TimedCall<T> call) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return call.call();
+            } finally {
+                record(stage, System.nanoTime() - start);
+            }
+        }
+
+        private synchronized void record(String stage, long nanos) {
+            latencies.computeIfAbsent(stage, s -> new ArrayList<>()).add(nanos);
+        }
+
+        synchronized String report() {
+            StringBuilder report = new StringBuilder(String.format("%-20s %8s %10s %10s", "stage", "count", "p50 ms", "p99 ms"));
+            latencies.forEach((stage, samples) -> {
+                Collections.sort(samples);
+                report.append(String.format("%n%-20s %8d %10.2f %10.2f",
+                        stage, samples.size(), percentile(samples, 0.50) / 1e6, percentile(samples, 0.99) / 1e6));
+            });
+            return report.toString();
+        }
+
+        private static long percentile(List<Long> sorted, double quantile) {
+            return sorted.get(Math.min(sorted.size() - 1, (int) Math.ceil(quantile * sorted.size()) - 1));
+        }
+    }
+
+    private interface TimedCall<T> {
+        T call() throws IOException;
+    }
+
+    private static class TimedJudgeInteractor extends JudgeInteractor {
+        private final JudgeInteractor delegate;
+        private final Stages stages;
+
+        TimedJudgeInteractor(JudgeInteractor delegate, Logger logger, Stages stages) {
+            super(logger, delegate.getName());
+            this.delegate = delegate;
+            this.stages = stages;
+        }
+
+        @Override
+        public Problem getProblemByUrl(String url) throws IOException, UnsupportedPageFormat {
+            long start = System.nanoTime();
+            try {
+                return delegate.getProblemByUrl(url);
+            } finally {
+                stages.record("judge.problemPage", System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public List<String> getProblemUrlsInInterval(LocalDateTime begin, LocalDateTime end, int limit) throws IOException {
+            return stages.time("judge.problemUrls", () -> delegate.getProblemUrlsInInterval(begin, end, limit));
+        }
+    }
+
+    private static class TimedRekoderApi implements RekoderApi {
+        private final RekoderApi delegate;
+        private final Stages stages;
+
+        TimedRekoderApi(RekoderApi delegate, Stages stages) {
+            this.delegate = delegate;
+            this.stages = stages;
+        }
+
+        @Override
+        public int addProblem(String user, Problem problem) throws IOException {
+            return stages.time("api.addProblem", () -> delegate.addProblem(user, problem));
+        }
+
+        @Override
+        public void putProblem(int folderId, int problemId) throws IOException {
+            stages.time("api.putProblem", () -> {
+                delegate.putProblem(folderId, problemId);
+                return null;
+            });
+        }
+
+        @Override
+        public void putProblems(int folderId, List<Integer> problemIds) throws IOException {
+            stages.time("api.putProblems", () -> {
+                delegate.putProblems(folderId, problemIds);
+                return null;
+            });
+        }
+
+        @Override
+        public void setBatchExecutor(Executor executor) {
+            delegate.setBatchExecutor(executor);
+        }
+
+        @Override
+        public int addFolder(int parentFolder, String name) throws IOException {
+            return stages.time("api.addFolder", () -> delegate.addFolder(parentFolder, name));
+        }
+
+        @Override
+        public int getUserRootFolderId(String user) throws IOException {
+            return stages.time("api.rootFolder", () -> delegate.getUserRootFolderId(user));
+        }
+
+        @Override
+        public Map<String, Integer> listFolders(int parentFolder) throws IOException {
+            return stages.time("api.listFolders", () -> delegate.listFolders(parentFolder));
+        }
+
+        @Override
+        public String toFolderName(String name) {
+            return delegate.toFolderName(name);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static class HeapSampler extends Thread {
+        private final AtomicLong peakBytes = new AtomicLong();
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        HeapSampler() {
+            super("bench-heap-sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                peakBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            peakBytes.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        }
+    }
+}
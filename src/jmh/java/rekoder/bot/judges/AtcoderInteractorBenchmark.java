@@ -0,0 +1,61 @@
+package rekoder.bot.judges;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rekoder.primitive.Problem;
+import rekoder.util.UnsupportedPageFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AtcoderInteractorBenchmark {
+    @Param({"agc052_c.html"})
+    public String fixture;
+
+    private String html;
+    private Document document;
+
+    @Setup
+    public void setUp() throws IOException, UnsupportedPageFormat {
+        try (InputStream is = AtcoderInteractorBenchmark.class.getResourceAsStream("/atcoder/" + fixture)) {
+            if (is == null) {
+                throw new IOException("Missing fixture: " + fixture);
+            }
+            html = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        document = Jsoup.parse(html);
+        Problem problem = AtcoderInteractor.parseProblem(document);
+        if (problem.name.isEmpty() || problem.statement.isEmpty()) {
+            throw new IllegalStateException(String.format("AtCoder page layout regression in %s\n%s", fixture, problem));
+        }
+    }
+
+    @Benchmark
+    public Problem parseProblem() throws UnsupportedPageFormat {
+        return AtcoderInteractor.parseProblem(document);
+    }
+
+    @Benchmark
+    public Problem parseDocumentAndProblem() throws UnsupportedPageFormat {
+        return AtcoderInteractor.parseProblem(Jsoup.parse(html));
+    }
+}
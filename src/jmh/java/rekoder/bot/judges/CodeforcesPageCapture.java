@@ -0,0 +1,54 @@
+package rekoder.bot.judges;
+
+import rekoder.util.Config;
+import rekoder.util.HttpRequestAttemptOverflow;
+import rekoder.util.Util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+// Saves live Codeforces problem pages as benchmark fixtures, e.g. `1520/A` is written to contest-1520-A.html,
+// and records the capture date and source of each page in captures.properties next to them
+public class CodeforcesPageCapture {
+    static final String CAPTURES = "captures.properties";
+
+    public static void main(String[] args) throws IOException, HttpRequestAttemptOverflow {
+        if (args.length < 2) {
+            System.err.println("Usage: CodeforcesPageCapture <directory> <contest>/<index>...");
+            System.exit(1);
+        }
+        String baseUrl = Config.getString("rekoder.codeforces.url", "https://codeforces.com");
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        Path capturesFile = directory.resolve(CAPTURES);
+        Properties captures = new Properties();
+        if (Files.exists(capturesFile)) {
+            try (Reader reader = Files.newBufferedReader(capturesFile, StandardCharsets.UTF_8)) {
+                captures.load(reader);
+            }
+        }
+        for (int i = 1; i < args.length; i++) {
+            String[] problem = args[i].split("/");
+            if (problem.length != 2) {
+                throw new IllegalArgumentException("Expected <contest>/<index>: " + args[i]);
+            }
+            URL url = new URL(String.format("%s/contest/%s/problem/%s", baseUrl, problem[0], problem[1]));
+            String page = Util.executeRequest(url, 3, 1000, Logger.getGlobal());
+            Path file = directory.resolve(String.format("contest-%s-%s.html", problem[0], problem[1]));
+            Files.writeString(file, page, StandardCharsets.UTF_8);
+            captures.setProperty(file.getFileName().toString(), LocalDate.now() + " " + url);
+            System.out.printf("%s -> %s%n", url, file);
+        }
+        try (Writer writer = Files.newBufferedWriter(capturesFile, StandardCharsets.UTF_8)) {
+            captures.store(writer, "Capture date and source of each page, pages missing here are reconstructions");
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package rekoder.bot.judges;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rekoder.primitive.Problem;
+import rekoder.util.UnsupportedPageFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static rekoder.util.Util.checkNotNullOrThrowFormat;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeforcesProblemParserBenchmark {
+    private static final String URL = "https://codeforces.com/contest/0/problem/A";
+
+    @Param({"contest-1520-A.html", "contest-1521-B.html", "contest-1527-E.html"})
+    public String fixture;
+
+    private String html;
+    private Document document;
+
+    @Setup
+    public void setUp() throws IOException, UnsupportedPageFormat {
+        try (InputStream is = CodeforcesProblemParserBenchmark.class.getResourceAsStream("/codeforces/" + fixture)) {
+            if (is == null) {
+                throw new IOException("Missing fixture: " + fixture);
+            }
+            html = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Properties captures = new Properties();
+        try (InputStream is = CodeforcesProblemParserBenchmark.class.getResourceAsStream("/codeforces/" + CodeforcesPageCapture.CAPTURES)) {
+            if (is != null) {
+                captures.load(is);
+            }
+        }
+        if (captures.getProperty(fixture) == null) {
+            System.err.printf("WARNING: %s is a reconstruction, not a captured page, so neither the score nor the layout check "
+                    + "reflects what Codeforces serves. Replace it with CodeforcesPageCapture%n", fixture);
+        }
+        document = Jsoup.parse(html);
+        Problem expected = legacyParse(document, URL);
+        Problem actual = CodeforcesProblemParser.parse(document, URL);
+        if (!expected.equals(actual) || !Objects.equals(expected.contest, actual.contest)
+                || expected.name.isEmpty() || expected.statement.isEmpty() || expected.examples.isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "Codeforces page layout regression in %s\nlegacy:\n%s\nsingle pass:\n%s", fixture, expected, actual));
+        }
+    }
+
+    @Benchmark
+    public Problem legacy() throws UnsupportedPageFormat {
+        return legacyParse(document, URL);
+    }
+
+    @Benchmark
+    public Problem singlePass() throws UnsupportedPageFormat {
+        return CodeforcesProblemParser.parse(document, URL);
+    }
+
+    @Benchmark
+    public Problem parseDocumentAndSinglePass() throws UnsupportedPageFormat {
+        return CodeforcesProblemParser.parse(Jsoup.parse(html), URL);
+    }
+
+    // extraction as it was before CodeforcesProblemParser, kept as the baseline and as the reference output
+    private static Problem legacyParse(Document document, String url) throws UnsupportedPageFormat {
+        Element statement = document.getElementsByClass("problem-statement")
+                .stream()
+                .findAny()
+                .orElse(null);
+        checkNotNullOrThrowFormat(statement);
+        Element title = statement.getElementsByClass("title")
+                .stream()
+                .findAny()
+                .orElse(null);
+        checkNotNullOrThrowFormat(title);
+        String problemName = title
+                .text()
+                .chars()
+                .dropWhile(c -> c != ' ')
+                .skip(1)
+                .collect(StringBuilder::new,
+                        StringBuilder::appendCodePoint,
+                        StringBuilder::append)
+                .toString();
+        Element problemStatement = statement.getElementsByTag("div")
+                .stream()
+                .limit(12)
+                .skip(11)
+                .findAny()
+                .orElse(null);
+        checkNotNullOrThrowFormat(problemStatement);
+        Element problemInputFormatElement = statement.getElementsByClass("input-specification")
+                .stream()
+                .findAny()
+                .orElse(null);
+        checkNotNullOrThrowFormat(problemInputFormatElement);
+        String inputFormat = problemInputFormatElement.html()
+                .chars()
+                .skip(42)
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                .toString();
+        Element problemOutputFormat = statement.getElementsByClass("output-specification")
+                .stream()
+                .findAny()
+                .orElse(null);
+        checkNotNullOrThrowFormat(problemOutputFormat);
+        String outputFormat = problemOutputFormat.html()
+                .chars()
+                .skip(43)
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                .toString();
+        List<String> inputs = document.getElementsByClass("sample-test")
+                .stream()
+                .flatMap(element -> element.getElementsByClass("input").stream())
+                .map(e -> e.getElementsByTag("pre").stream().findAny().orElseThrow().html())
+                .collect(Collectors.toList());
+        List<String> outputs = document.getElementsByClass("sample-test")
+                .stream()
+                .flatMap(element -> element.getElementsByClass("output").stream())
+                .map(e -> e.getElementsByTag("pre").stream().findAny().orElseThrow().html())
+                .collect(Collectors.toList());
+
+        if (inputs.size() != outputs.size()) {
+            throw new UnsupportedPageFormat("Unsupported page format");
+        }
+
+        List<Problem.Test> examples = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            examples.add(new Problem.Test(inputs.get(i), outputs.get(i)));
+        }
+
+        Element contestNameElement = document.getElementsByTag("th").stream().limit(1).findAny().orElse(null);
+        checkNotNullOrThrowFormat(contestNameElement);
+        contestNameElement = contestNameElement.getElementsByTag("a").stream().findAny().orElse(null);
+        checkNotNullOrThrowFormat(contestNameElement);
+        String contestName = contestNameElement.text();
+
+        return new Problem(problemName, problemStatement.html(), inputFormat, outputFormat, examples, contestName, url);
+    }
+}
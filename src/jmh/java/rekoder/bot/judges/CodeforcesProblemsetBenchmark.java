@@ -0,0 +1,126 @@
+package rekoder.bot.judges;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodeforcesProblemsetBenchmark {
+    private static final LocalDateTime BEGIN = LocalDateTime.MIN;
+    private static final LocalDateTime END = LocalDateTime.MAX;
+
+    @Param({"1000", "8000"})
+    public int problems;
+
+    private byte[] contestList;
+    private byte[] problemset;
+    private Map<Long, LocalDateTime> contestStartTime;
+    private CodeforcesInteractor interactor;
+
+    @Setup
+    public void setUp() throws IOException {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setLevel(Level.OFF);
+        interactor = new CodeforcesInteractor(logger);
+        Random random = new Random(42);
+        int contests = Math.max(1, problems / 6);
+        JSONArray contestArray = new JSONArray();
+        for (int id = 1; id <= contests; id++) {
+            contestArray.put(new JSONObject()
+                    .put("id", id)
+                    .put("name", "Codeforces Round #" + id)
+                    .put("type", "CF")
+                    .put("phase", "FINISHED")
+                    .put("frozen", false)
+                    .put("durationSeconds", 7200)
+                    .put("startTimeSeconds", 1_300_000_000L + 86_400L * id)
+                    .put("relativeTimeSeconds", 86_400L * (contests - id)));
+        }
+        contestList = new JSONObject().put("status", "OK").put("result", contestArray).toString().getBytes(StandardCharsets.UTF_8);
+        JSONArray problemArray = new JSONArray();
+        JSONArray statistics = new JSONArray();
+        for (int i = 0; i < problems; i++) {
+            int contestId = 1 + i / 6;
+            String index = String.valueOf((char) ('A' + i % 6));
+            problemArray.put(new JSONObject()
+                    .put("contestId", contestId)
+                    .put("index", index)
+                    .put("name", "Problem " + i)
+                    .put("type", "PROGRAMMING")
+                    .put("points", 500.0 * (1 + i % 6))
+                    .put("rating", 800 + 100 * random.nextInt(28))
+                    .put("tags", new JSONArray(List.of("math", "greedy", "implementation").subList(0, 1 + random.nextInt(3)))));
+            statistics.put(new JSONObject()
+                    .put("contestId", contestId)
+                    .put("index", index)
+                    .put("solvedCount", random.nextInt(50_000)));
+        }
+        problemset = new JSONObject()
+                .put("status", "OK")
+                .put("result", new JSONObject().put("problems", problemArray).put("problemStatistics", statistics))
+                .toString()
+                .getBytes(StandardCharsets.UTF_8);
+        contestStartTime = CodeforcesInteractor.readContestStartTimes(new ByteArrayInputStream(contestList));
+        if (!streaming().equals(treeModel())) {
+            throw new IllegalStateException("Streaming and tree model parsers disagree on problemset.problems");
+        }
+    }
+
+    @Benchmark
+    public Map<Long, LocalDateTime> contestList() throws IOException {
+        return CodeforcesInteractor.readContestStartTimes(new ByteArrayInputStream(contestList));
+    }
+
+    @Benchmark
+    public List<String> streaming() throws IOException {
+        return interactor.readProblemUrls(new ByteArrayInputStream(problemset), contestStartTime, BEGIN, END, JudgeInteractor.NO_LIMIT);
+    }
+
+    // the org.json tree model the interactor used before streaming, kept as the baseline
+    @Benchmark
+    public List<String> treeModel() {
+        JSONArray problemArray = new JSONObject(new String(problemset, StandardCharsets.UTF_8))
+                .getJSONObject("result")
+                .getJSONArray("problems");
+        Map<Long, LocalDateTime> startTimes = new HashMap<>(contestStartTime);
+        List<String> problemUrls = new ArrayList<>();
+        for (int i = 0; i < problemArray.length(); i++) {
+            JSONObject problem = problemArray.getJSONObject(i);
+            long contestId = problem.getLong("contestId");
+            LocalDateTime problemCreationDate = startTimes.get(contestId);
+            if (problemCreationDate == null || !(problemCreationDate.isAfter(BEGIN) && problemCreationDate.isBefore(END))) {
+                continue;
+            }
+            problemUrls.add(String.format("https://codeforces.com/contest/%d/problem/%s", contestId, problem.getString("index")));
+        }
+        return problemUrls;
+    }
+}
@@ -0,0 +1,78 @@
+package rekoder.primitive;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProblemHashSetBenchmark {
+    @Param({"100", "10000"})
+    public int size;
+
+    @Param({"2000"})
+    public int statementLength;
+
+    private List<Problem> problems;
+    private List<Problem> copies;
+    private Set<Problem> filled;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        problems = new ArrayList<>(size);
+        copies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String statement = randomText(random, statementLength) + i;
+            List<Problem.Test> examples = List.of(
+                    new Problem.Test(randomText(random, 64), randomText(random, 16)),
+                    new Problem.Test(randomText(random, 64), randomText(random, 16)));
+            problems.add(new Problem("Problem " + i, statement, "input format", "output format", examples, "Contest " + i / 6, null));
+            copies.add(new Problem("Problem " + i, statement, "input format", "output format", examples, "Contest " + i / 6, null));
+        }
+        filled = new HashSet<>(problems);
+    }
+
+    @Benchmark
+    public Set<Problem> add() {
+        return new HashSet<>(problems);
+    }
+
+    @Benchmark
+    public int containsEqualCopy() {
+        int found = 0;
+        for (Problem copy : copies) {
+            if (filled.contains(copy)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package rekoder.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class BackendStubServer extends StubServer {
+    private static final int ROOT_FOLDER_ID = 1;
+    private static final Pattern USER = Pattern.compile("/users/[^/]+");
+    private static final Pattern USER_PROBLEMS = Pattern.compile("/users/[^/]+/problems");
+    private static final Pattern FOLDER_PROBLEMS = Pattern.compile("/folders/\\d+/problems");
+    private static final Pattern FOLDER_FOLDERS = Pattern.compile("/folders/(\\d+)/folders");
+
+    private final AtomicInteger nextProblemId = new AtomicInteger();
+    private final AtomicInteger nextFolderId = new AtomicInteger(ROOT_FOLDER_ID);
+    private final AtomicInteger problemsPut = new AtomicInteger();
+    private final Map<Integer, Map<String, Integer>> folders = new ConcurrentHashMap<>();
+
+    public BackendStubServer(int latencyMillis, double errorRate, double throttleRate) throws IOException {
+        super("backend", latencyMillis, errorRate, throttleRate);
+    }
+
+    @Override
+    public String getStats() {
+        return String.format("%s, problems added %d, folders added %d, problems put %d",
+                super.getStats(), nextProblemId.get(), nextFolderId.get() - ROOT_FOLDER_ID, problemsPut.get());
+    }
+
+    @Override
+    protected void serve(HttpExchange exchange, byte[] body) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        Matcher folderFolders = FOLDER_FOLDERS.matcher(path);
+        if (method.equals("GET") && USER.matcher(path).matches()) {
+            respond(exchange, 200, "application/json", String.format("{\"rootFolderId\":%d}", ROOT_FOLDER_ID));
+        } else if (method.equals("POST") && USER_PROBLEMS.matcher(path).matches()) {
+            respond(exchange, 201, "application/json", String.format("{\"id\":%d}", nextProblemId.incrementAndGet()));
+        } else if (method.equals("POST") && folderFolders.matches()) {
+            String name = new JSONObject(new String(body, StandardCharsets.UTF_8)).getString("name");
+            int id = nextFolderId.incrementAndGet();
+            folders.computeIfAbsent(Integer.parseInt(folderFolders.group(1)), parent -> new ConcurrentHashMap<>()).put(name, id);
+            respond(exchange, 201, "application/json", String.format("{\"id\":%d}", id));
+        } else if (method.equals("GET") && folderFolders.matches()) {
+            JSONArray children = new JSONArray();
+            folders.getOrDefault(Integer.parseInt(folderFolders.group(1)), Map.of())
+                    .forEach((name, id) -> children.put(new JSONObject(Map.of("id", id, "name", name))));
+            respond(exchange, 200, "application/json", children.toString());
+        } else if (method.equals("PATCH") && FOLDER_PROBLEMS.matcher(path).matches()) {
+            problemsPut.incrementAndGet();
+            respond(exchange, 204, "application/json", "");
+        } else {
+            respond(exchange, 404, "text/plain", "");
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package rekoder.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class CodeforcesStubServer extends StubServer {
+    private static final List<String> PAGES = List.of("contest-1520-A.html", "contest-1521-B.html", "contest-1527-E.html");
+    private static final Pattern PROBLEM_PATH = Pattern.compile("/contest/(\\d+)/problem/(\\w+)");
+    private static final Pattern TITLE = Pattern.compile("<div class=\"title\">[^<]*</div>");
+    private static final Pattern CONTEST_NAME = Pattern.compile("(<th class=\"left\"[^>]*><a [^>]*>)[^<]*(</a>)");
+    private static final long FIRST_START_TIME_SECONDS = 1_600_000_000L;
+
+    private final int contests;
+    private final int problemsPerContest;
+    private final List<String> pages = new ArrayList<>();
+    private final String contestList;
+    private final String problemset;
+
+    public CodeforcesStubServer(int contests, int problemsPerContest, int latencyMillis, double errorRate, double throttleRate) throws IOException {
+        super("codeforces", latencyMillis, errorRate, throttleRate);
+        this.contests = contests;
+        this.problemsPerContest = problemsPerContest;
+        for (String page : PAGES) {
+            try (InputStream is = CodeforcesStubServer.class.getResourceAsStream("/codeforces/" + page)) {
+                if (is == null) {
+                    throw new IOException("Missing recorded page: " + page);
+                }
+                pages.add(new String(is.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        StringBuilder contestList = new StringBuilder("{\"status\":\"OK\",\"result\":[");
+        for (int id = 1; id <= contests; id++) {
+            contestList.append(id == 1 ? "" : ",")
+                    .append(String.format("{\"id\":%d,\"name\":\"Stub Round #%d\",\"type\":\"CF\",\"phase\":\"FINISHED\","
+                            + "\"durationSeconds\":7200,\"startTimeSeconds\":%d}", id, id, FIRST_START_TIME_SECONDS + 3600L * id));
+        }
+        this.contestList = contestList.append("]}").toString();
+        StringBuilder problemset = new StringBuilder("{\"status\":\"OK\",\"result\":{\"problems\":[");
+        for (int id = 1; id <= contests; id++) {
+            for (int i = 0; i < problemsPerContest; i++) {
+                problemset.append(id == 1 && i == 0 ? "" : ",")
+                        .append(String.format("{\"contestId\":%d,\"index\":\"%s\",\"name\":\"Stub %d%s\",\"type\":\"PROGRAMMING\",\"tags\":[]}",
+                                id, index(i), id, index(i)));
+            }
+        }
+        this.problemset = problemset.append("],\"problemStatistics\":[]}}").toString();
+    }
+
+    public int getProblemCount() {
+        return contests * problemsPerContest;
+    }
+
+    @Override
+    protected void serve(HttpExchange exchange, byte[] body) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/api/contest.list")) {
+            respond(exchange, 200, "application/json", contestList);
+            return;
+        }
+        if (path.equals("/api/problemset.problems")) {
+            respond(exchange, 200, "application/json", problemset);
+            return;
+        }
+        Matcher problem = PROBLEM_PATH.matcher(path);
+        if (problem.matches()) {
+            int contestId = Integer.parseInt(problem.group(1));
+            String index = problem.group(2);
+            String page = pages.get(Math.floorMod((contestId + index).hashCode(), pages.size()));
+            // every problem gets its own title and contest so that the bot sees distinct problems and folders
+            String title = String.format("<div class=\"title\">%s. Stub problem %d%s</div>", index, contestId, index);
+            page = TITLE.matcher(page).replaceFirst(Matcher.quoteReplacement(title));
+            page = CONTEST_NAME.matcher(page).replaceFirst("$1Stub Round #" + contestId + "$2");
+            respond(exchange, 200, "text/html;charset=utf-8", page);
+            return;
+        }
+        respond(exchange, 404, "text/plain", "");
+    }
+
+    private static String index(int i) {
+        return String.valueOf((char) ('A' + i));
+    }
+}
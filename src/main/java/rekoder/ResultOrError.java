@@ -29,4 +29,8 @@ public class ResultOrError<R> {
     public String getErrorMessage() {
         return message;
     }
+
+    public Level getErrorLevel() {
+        return level;
+    }
 }
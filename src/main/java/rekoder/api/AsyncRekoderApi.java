@@ -0,0 +1,18 @@
+package rekoder.api;
+
+import rekoder.primitive.Problem;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncRekoderApi {
+    CompletableFuture<Integer> addProblem(String user, Problem problem);
+
+    CompletableFuture<Void> putProblem(int folderId, int problemId);
+
+    CompletableFuture<Void> putProblems(int folderId, List<Integer> problemIds);
+
+    CompletableFuture<Integer> addFolder(int parentFolder, String name);
+
+    CompletableFuture<Integer> getUserRootFolderId(String user);
+}
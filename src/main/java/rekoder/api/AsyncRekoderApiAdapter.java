@@ -0,0 +1,64 @@
+package rekoder.api;
+
+import rekoder.primitive.Problem;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+public class AsyncRekoderApiAdapter implements AsyncRekoderApi {
+    private final RekoderApi api;
+    private final Executor executor;
+
+    public AsyncRekoderApiAdapter(RekoderApi api, Executor executor) {
+        this.api = api;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Integer> addProblem(String user, Problem problem) {
+        return supplyAsync(() -> api.addProblem(user, problem));
+    }
+
+    @Override
+    public CompletableFuture<Void> putProblem(int folderId, int problemId) {
+        return supplyAsync(() -> {
+            api.putProblem(folderId, problemId);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> putProblems(int folderId, List<Integer> problemIds) {
+        return supplyAsync(() -> {
+            api.putProblems(folderId, problemIds);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> addFolder(int parentFolder, String name) {
+        return supplyAsync(() -> api.addFolder(parentFolder, name));
+    }
+
+    @Override
+    public CompletableFuture<Integer> getUserRootFolderId(String user) {
+        return supplyAsync(() -> api.getUserRootFolderId(user));
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(BlockingCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.execute();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private interface BlockingCall<T> {
+        T execute() throws IOException;
+    }
+}
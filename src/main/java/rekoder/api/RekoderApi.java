@@ -2,9 +2,14 @@ package rekoder.api;
 
 import rekoder.primitive.Problem;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
-public interface RekoderApi {
+public interface RekoderApi extends Closeable {
     int addProblem(String user, Problem problem) throws IOException;
 
     void putProblem(int folderId, int problemId) throws IOException;
@@ -12,4 +17,41 @@ public interface RekoderApi {
     int addFolder(int parentFolder, String name) throws IOException;
 
     int getUserRootFolderId(String user) throws IOException;
+
+    Map<String, Integer> listFolders(int parentFolder) throws IOException;
+
+    // name under which the backend stores a folder created by addFolder
+    default String toFolderName(String name) {
+        return name;
+    }
+
+    default List<Integer> addProblems(String user, List<Problem> problems) throws IOException {
+        List<Integer> problemIds = new ArrayList<>(problems.size());
+        for (Problem problem : problems) {
+            problemIds.add(addProblem(user, problem));
+        }
+        return problemIds;
+    }
+
+    default void putProblems(int folderId, List<Integer> problemIds) throws IOException {
+        for (int problemId : problemIds) {
+            putProblem(folderId, problemId);
+        }
+    }
+
+    default List<Integer> addFolders(int parentFolder, List<String> names) throws IOException {
+        List<Integer> folderIds = new ArrayList<>(names.size());
+        for (String name : names) {
+            folderIds.add(addFolder(parentFolder, name));
+        }
+        return folderIds;
+    }
+
+    // executor the batch calls may spread their requests over, without one they run on the calling thread
+    default void setBatchExecutor(Executor executor) {
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
 }
@@ -7,6 +7,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -28,11 +30,28 @@ public class RekoderApiImplOffline implements RekoderApi {
         return 0;
     }
 
+    @Override
+    public List<Integer> addProblems(String user, List<Problem> problems) throws IOException {
+        Files.createDirectories(Path.of("temp"));
+        for (Problem problem : problems) {
+            Path outputFile = Paths.get("temp", problem.name);
+            Files.createFile(outputFile);
+            Files.write(outputFile, Collections.singleton(problem.statement));
+        }
+        logger.log(Level.INFO, String.format("Add %d offline problems", problems.size()));
+        return Collections.nCopies(problems.size(), 0);
+    }
+
     @Override
     public void putProblem(int folderId, int problemId) {
 
     }
 
+    @Override
+    public void putProblems(int folderId, List<Integer> problemIds) {
+
+    }
+
     @Override
     public int addFolder(int parentFolder, String name) throws IOException {
         Files.createDirectories(Path.of(name));
@@ -43,4 +62,9 @@ public class RekoderApiImplOffline implements RekoderApi {
     public int getUserRootFolderId(String user) {
         return 0;
     }
+
+    @Override
+    public Map<String, Integer> listFolders(int parentFolder) {
+        return Map.of();
+    }
 }
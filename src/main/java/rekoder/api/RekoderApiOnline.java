@@ -1,30 +1,87 @@
 package rekoder.api;
 
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.methods.*;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import rekoder.jfr.ApiCallEvent;
 import rekoder.primitive.Problem;
+import rekoder.util.CircuitBreaker;
+import rekoder.util.Config;
+import rekoder.util.Metrics;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
 public class RekoderApiOnline implements RekoderApi {
+    public static final int DEFAULT_MAX_CONNECTIONS = 32;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 5000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 30000;
+    public static final int DEFAULT_IDLE_CONNECTION_TIMEOUT_SECS = 30;
+    public static final int DEFAULT_BATCH_CHUNK_SIZE = 16;
+    // smaller bodies, e.g. putProblem, would only grow by the gzip header
+    private static final int GZIP_MIN_BODY_LENGTH = 1024;
+
     private final Logger logger;
+    private final CloseableHttpClient client;
+    private final boolean gzipRequests;
+    private final int batchChunkSize;
+    private volatile Executor batchExecutor;
+    private final CircuitBreaker circuitBreaker = CircuitBreaker.forName("api " + ApiUrl.DOMAIN);
 
     public RekoderApiOnline(Logger logger) {
+        this(logger,
+                Config.getInt("rekoder.api.maxConnections", DEFAULT_MAX_CONNECTIONS),
+                Config.getInt("rekoder.api.connectTimeoutMillis", DEFAULT_CONNECT_TIMEOUT_MILLIS),
+                Config.getInt("rekoder.api.readTimeoutMillis", DEFAULT_READ_TIMEOUT_MILLIS),
+                Config.getInt("rekoder.api.idleConnectionTimeoutSecs", DEFAULT_IDLE_CONNECTION_TIMEOUT_SECS));
+    }
+
+    public RekoderApiOnline(Logger logger, int maxConnections, int connectTimeoutMillis, int readTimeoutMillis, int idleConnectionTimeoutSecs) {
         this.logger = logger;
+        this.gzipRequests = Config.getBoolean("rekoder.api.gzipRequests", false);
+        this.batchChunkSize = Math.max(1, Config.getInt("rekoder.api.batchChunkSize", DEFAULT_BATCH_CHUNK_SIZE));
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMillis)
+                .setConnectionRequestTimeout(connectTimeoutMillis)
+                .setSocketTimeout(readTimeoutMillis)
+                .build();
+        this.client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleConnectionTimeoutSecs, TimeUnit.SECONDS)
+                .build();
     }
 
     public static void main(String[] args) {
-        RekoderApi api = new RekoderApiOnline(Logger.getGlobal());
-        try {
+        try (RekoderApi api = new RekoderApiOnline(Logger.getGlobal())) {
             int id = api.addFolder(api.getUserRootFolderId("CF3"), "Hello from Java");
             api.addProblem(
                     "CF3",
@@ -43,6 +100,13 @@ public class RekoderApiOnline implements RekoderApi {
 
     @Override
     public int addProblem(String user, Problem problem) throws IOException {
+        String postProblemResponse;
+        postProblemResponse = postJsonBody("addProblem", ApiUrl.addProblem(user), toJson(problem));
+        JSONObject postedProblem = new JSONObject(postProblemResponse);
+        return postedProblem.getInt("id");
+    }
+
+    static String toJson(Problem problem) {
         JSONObject problemJson = new JSONObject();
         problemJson.put("name", problem.name);
         problemJson.put("statement", problem.statement);
@@ -53,80 +117,214 @@ public class RekoderApiOnline implements RekoderApi {
                 "input", test.input,
                 "output", test.output
         ))).collect(Collectors.toList())));
-        String postProblemResponse;
-        postProblemResponse = postJsonBody(ApiUrl.addProblem(user), problemJson.toString());
-        JSONObject postedProblem = new JSONObject(postProblemResponse);
-        return postedProblem.getInt("id");
+        return problemJson.toString();
     }
 
     @Override
     public void putProblem(int folderId, int problemId) throws IOException {
         JSONObject putProblemToFolderJson = new JSONObject(Map.of("problemId", problemId));
-        patchJsonBody(ApiUrl.putProblem(folderId), putProblemToFolderJson.toString());
+        patchJsonBody("putProblem", ApiUrl.putProblem(folderId), putProblemToFolderJson.toString());
     }
 
     @Override
     public int addFolder(int parentFolder, String name) throws IOException {
+        JSONObject addFolderJson = new JSONObject(Map.of("name", toFolderName(name)));
+        return new JSONObject(postJsonBody("addFolder", ApiUrl.addFolder(parentFolder), addFolderJson.toString())).getInt("id");
+    }
+
+    @Override
+    public Map<String, Integer> listFolders(int parentFolder) throws IOException {
+        JSONArray folders = new JSONArray(executeHttpRequest("listFolders", new HttpGet(ApiUrl.listFolders(parentFolder)), new JSONObject().toString()));
+        Map<String, Integer> folderIds = new HashMap<>();
+        for (int i = 0; i < folders.length(); i++) {
+            JSONObject folder = folders.getJSONObject(i);
+            folderIds.put(folder.getString("name"), folder.getInt("id"));
+        }
+        return folderIds;
+    }
+
+    @Override
+    public String toFolderName(String name) {
         name = name.replaceAll(" ", "_"); // TODO: Will be changed in backend
         name = name.replaceAll("[^a-zA-Z0-9_]", ""); // TODO: Will be changed in backend
-        JSONObject addFolderJson = new JSONObject(Map.of("name", name));
-        return new JSONObject(postJsonBody(ApiUrl.addFolder(parentFolder), addFolderJson.toString())).getInt("id");
+        return name;
     }
 
     @Override
     public int getUserRootFolderId(String user) throws IOException {
-        return getJsonBody(ApiUrl.getUser(user)).getInt("rootFolderId");
+        return getJsonBody("getUser", ApiUrl.getUser(user)).getInt("rootFolderId");
     }
 
-    private String postJsonBody(String url, String body) throws IOException {
-        return executeHttpRequest(new HttpPost(url), body);
+    @Override
+    public List<Integer> addProblems(String user, List<Problem> problems) throws IOException {
+        return executeInChunks(problems, problem -> addProblem(user, problem));
     }
 
-    private void patchJsonBody(String url, String body) throws IOException {
-        executeHttpRequest(new HttpPatch(url), body);
+    @Override
+    public void putProblems(int folderId, List<Integer> problemIds) throws IOException {
+        executeInChunks(problemIds, problemId -> {
+            putProblem(folderId, problemId);
+            return problemId;
+        });
     }
 
-    private JSONObject getJsonBody(String url) throws IOException {
-        return new JSONObject(executeHttpRequest(new HttpGet(url)));
+    @Override
+    public List<Integer> addFolders(int parentFolder, List<String> names) throws IOException {
+        return executeInChunks(names, name -> addFolder(parentFolder, name));
     }
 
-    private String executeHttpRequest(HttpRequestBase request, String body) throws IOException {
-        try (CloseableHttpClient client = HttpClients.createDefault()) {
-            if (request instanceof HttpEntityEnclosingRequestBase) {
-                StringEntity entity = new StringEntity(body);
-                ((HttpEntityEnclosingRequestBase) request).setEntity(entity);
-            }
-            request.setHeader("Accept", "application/json");
-            request.setHeader("Content-type", "application/json");
-            request.setHeader("Authorization", "token"); // TODO: set correct token
-            logger.info(String.format("API: request %s, body: %s", request, body));
-            try (CloseableHttpResponse response = client.execute(request)) {
-                logger.info(String.format("API: response %s", response));
-                int responseCode = response.getStatusLine().getStatusCode();
-                if (responseCode == 204) {
-                    return new JSONObject().toString();
+    @Override
+    public void setBatchExecutor(Executor executor) {
+        this.batchExecutor = executor;
+    }
+
+    private <T, R> List<R> executeInChunks(List<T> items, BatchRequest<T, R> request) throws IOException {
+        List<R> results = new ArrayList<>(items.size());
+        for (int from = 0; from < items.size(); from += batchChunkSize) {
+            results.addAll(executeChunk(items.subList(from, Math.min(items.size(), from + batchChunkSize)), request));
+        }
+        return results;
+    }
+
+    // the calling thread takes requests of the chunk as well and waits only for the ones already taken, so a
+    // batch call made from a thread of the batch executor itself cannot wait on requests queued behind it
+    private <T, R> List<R> executeChunk(List<T> chunk, BatchRequest<T, R> request) throws IOException {
+        AtomicInteger next = new AtomicInteger();
+        AtomicReferenceArray<R> results = new AtomicReferenceArray<>(chunk.size());
+        AtomicReference<Exception> error = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(chunk.size());
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < chunk.size(); i = next.getAndIncrement()) {
+                try {
+                    results.set(i, request.execute(chunk.get(i)));
+                } catch (IOException | RuntimeException e) {
+                    error.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
                 }
-                if (responseCode / 100 != 2) {
-                    throw new IOException(String.format("API Request error, code %d: %s",
-                            response.getStatusLine().getStatusCode(),
-                            response.getStatusLine().getReasonPhrase()));
+            }
+        };
+        Executor executor = batchExecutor;
+        if (executor != null) {
+            try {
+                for (int i = 1; i < chunk.size(); i++) {
+                    executor.execute(worker);
                 }
-                return readAllInputStream(response.getEntity().getContent());
+            } catch (RejectedExecutionException ignored) {
+                // the requests left over are sent from this thread
             }
         }
+        worker.run();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            next.set(chunk.size());
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch request was interrupted");
+        }
+        if (error.get() instanceof IOException) {
+            throw (IOException) error.get();
+        }
+        if (error.get() != null) {
+            throw (RuntimeException) error.get();
+        }
+        List<R> chunkResults = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            chunkResults.add(results.get(i));
+        }
+        return chunkResults;
+    }
+
+    private String postJsonBody(String endpoint, String url, String body) throws IOException {
+        return executeHttpRequest(endpoint, new HttpPost(url), body);
     }
 
-    private String executeHttpRequest(HttpRequestBase request) throws IOException {
-        return executeHttpRequest(request, new JSONObject().toString());
+    private void patchJsonBody(String endpoint, String url, String body) throws IOException {
+        executeHttpRequest(endpoint, new HttpPatch(url), body);
     }
 
-    private String readAllInputStream(InputStream is) {
-        return new BufferedReader(new InputStreamReader(is))
-                .lines().collect(Collectors.joining("\n"));
+    private JSONObject getJsonBody(String endpoint, String url) throws IOException {
+        return new JSONObject(executeHttpRequest(endpoint, new HttpGet(url), new JSONObject().toString()));
+    }
+
+    private String executeHttpRequest(String endpoint, HttpRequestBase request, String body) throws IOException {
+        ApiCallEvent event = new ApiCallEvent();
+        event.begin();
+        long start = System.nanoTime();
+        String response = null;
+        try {
+            response = executeHttpRequest(request, body);
+            event.outcome = "ok";
+            return response;
+        } catch (IOException | RuntimeException e) {
+            Metrics.counter("api.failures." + endpoint).increment();
+            event.outcome = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Metrics.histogram("api." + endpoint).recordSince(start);
+            if (event.shouldCommit()) {
+                event.endpoint = endpoint;
+                event.method = request.getMethod();
+                event.url = request.getURI().toString();
+                event.requestBytes = request instanceof HttpEntityEnclosingRequestBase ? body.getBytes(StandardCharsets.UTF_8).length : 0;
+                event.responseBytes = response == null ? 0 : response.getBytes(StandardCharsets.UTF_8).length;
+                event.commit();
+            }
+        }
+    }
+
+    private String executeHttpRequest(HttpRequestBase request, String body) throws IOException {
+        if (request instanceof HttpEntityEnclosingRequestBase) {
+            StringEntity entity = new StringEntity(body, ContentType.APPLICATION_JSON);
+            ((HttpEntityEnclosingRequestBase) request).setEntity(gzipRequests && body.length() >= GZIP_MIN_BODY_LENGTH
+                    ? new GzipCompressingEntity(entity)
+                    : entity);
+        }
+        request.setHeader("Accept", "application/json");
+        request.setHeader("Content-type", "application/json");
+        request.setHeader("Authorization", "token"); // TODO: set correct token
+        logger.info(String.format("API: request %s, body: %s", request, body));
+        circuitBreaker.acquire();
+        boolean healthy = false;
+        try (CloseableHttpResponse response = client.execute(request)) {
+            logger.info(String.format("API: response %s", response));
+            int responseCode = response.getStatusLine().getStatusCode();
+            if (responseCode == 204) {
+                EntityUtils.consume(response.getEntity());
+                healthy = true;
+                return new JSONObject().toString();
+            }
+            if (responseCode / 100 != 2) {
+                EntityUtils.consume(response.getEntity());
+                // a client error is the request's fault, but throttling is the backend being overloaded
+                healthy = responseCode / 100 != 5 && responseCode != 429;
+                throw new IOException(String.format("API Request error, code %d: %s",
+                        response.getStatusLine().getStatusCode(),
+                        response.getStatusLine().getReasonPhrase()));
+            }
+            String responseBody = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+            healthy = true;
+            return responseBody;
+        } finally {
+            if (healthy) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    private interface BatchRequest<T, R> {
+        R execute(T item) throws IOException;
     }
 
     private static class ApiUrl {
-        private static final String DOMAIN = "https://rekoderback.cfapps.eu10.hana.ondemand.com";
+        private static final String DOMAIN = Config.getString("rekoder.api.url", "https://rekoderback.cfapps.eu10.hana.ondemand.com");
 
         private static String addProblem(String user) {
             return String.format("%s/users/%s/problems", DOMAIN, user);
@@ -140,6 +338,10 @@ public class RekoderApiOnline implements RekoderApi {
             return String.format("%s/folders/%s/folders", DOMAIN, folder);
         }
 
+        private static String listFolders(int folder) {
+            return String.format("%s/folders/%s/folders", DOMAIN, folder);
+        }
+
         private static String getUser(String user) {
             return String.format("%s/users/%s", DOMAIN, user);
         }
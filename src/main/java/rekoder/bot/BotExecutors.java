@@ -0,0 +1,168 @@
+package rekoder.bot;
+
+import rekoder.api.RekoderApiOnline;
+import rekoder.util.Config;
+import rekoder.util.Metrics;
+import rekoder.util.VirtualThreadExecutor;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+class BotExecutors {
+    public static final int DEFAULT_UPDATE_THREADS = 2;
+    public static final int DEFAULT_JUDGE_IO_THREADS = 16;
+    public static final int DEFAULT_API_IO_THREADS = 8;
+    public static final int DEFAULT_VIRTUAL_MAX_JUDGE_REQUESTS = 1024;
+
+    private final Logger logger;
+    private final ThreadPoolExecutor update;
+    private final ThreadPoolExecutor worker;
+    private final ExecutorService judgeIo;
+    private final ExecutorService apiIo;
+    private final Semaphore updateSlots;
+
+    BotExecutors(Logger logger) {
+        this.logger = logger;
+        int updateThreads = Math.max(1, Config.getInt("rekoder.executors.updateThreads", DEFAULT_UPDATE_THREADS));
+        this.update = newPool("update", updateThreads);
+        this.worker = newPool("worker", Math.max(updateThreads, Runtime.getRuntime().availableProcessors()));
+        if (VirtualThreadExecutor.isEnabled()) {
+            // judge requests are also bounded per host, API calls wait for a permit rather than time out leasing a connection
+            this.judgeIo = new VirtualThreadExecutor("judge-io",
+                    Math.max(1, Config.getInt("rekoder.virtualThreads.maxJudgeRequests", DEFAULT_VIRTUAL_MAX_JUDGE_REQUESTS)));
+            this.apiIo = new VirtualThreadExecutor("api-io",
+                    Math.max(1, Config.getInt("rekoder.virtualThreads.maxApiCalls",
+                            Config.getInt("rekoder.api.maxConnections", RekoderApiOnline.DEFAULT_MAX_CONNECTIONS))));
+        } else {
+            this.judgeIo = newPool("judge-io", Math.max(1, Config.getInt("rekoder.executors.judgeIoThreads", DEFAULT_JUDGE_IO_THREADS)));
+            this.apiIo = newPool("api-io", Math.max(1, Config.getInt("rekoder.executors.apiIoThreads", DEFAULT_API_IO_THREADS)));
+        }
+        this.updateSlots = new Semaphore(updateThreads);
+        for (ExecutorService pool : List.of(update, worker, judgeIo, apiIo)) {
+            Metrics.gauge(String.format("executor.%s.queued", nameOf(pool)), () -> queuedOf(pool));
+            Metrics.gauge(String.format("executor.%s.active", nameOf(pool)), () -> activeOf(pool));
+        }
+    }
+
+    void submitUpdate(Runnable task) throws InterruptedException {
+        updateSlots.acquire();
+        try {
+            update.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    updateSlots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            updateSlots.release();
+            throw e;
+        }
+    }
+
+    ExecutorService worker() {
+        return worker;
+    }
+
+    ExecutorService judgeIo() {
+        return judgeIo;
+    }
+
+    ExecutorService apiIo() {
+        return apiIo;
+    }
+
+    String getStats() {
+        return List.of(update, worker, judgeIo, apiIo)
+                .stream()
+                .map(pool -> String.format("%s: active %d/%d, queued %d, completed %d%s",
+                        nameOf(pool),
+                        activeOf(pool),
+                        maxActiveOf(pool),
+                        queuedOf(pool),
+                        completedOf(pool),
+                        pool instanceof VirtualThreadExecutor ? ", virtual threads" : ""))
+                .collect(Collectors.joining("\n"));
+    }
+
+    void shutdown(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ExecutorService pool : List.of(update, worker, judgeIo, apiIo)) {
+            pool.shutdown();
+            try {
+                if (!pool.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    logger.log(Level.WARNING, String.format("Executor '%s' did not finish in time, interrupting", nameOf(pool)));
+                    pool.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                pool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static String nameOf(ExecutorService pool) {
+        return pool instanceof VirtualThreadExecutor
+                ? ((VirtualThreadExecutor) pool).getName()
+                : ((NamedThreadFactory) ((ThreadPoolExecutor) pool).getThreadFactory()).name;
+    }
+
+    private static int activeOf(ExecutorService pool) {
+        return pool instanceof VirtualThreadExecutor
+                ? ((VirtualThreadExecutor) pool).getActiveCount()
+                : ((ThreadPoolExecutor) pool).getActiveCount();
+    }
+
+    private static int queuedOf(ExecutorService pool) {
+        return pool instanceof VirtualThreadExecutor
+                ? ((VirtualThreadExecutor) pool).getWaitingCount()
+                : ((ThreadPoolExecutor) pool).getQueue().size();
+    }
+
+    private static int maxActiveOf(ExecutorService pool) {
+        return pool instanceof VirtualThreadExecutor
+                ? ((VirtualThreadExecutor) pool).getMaxConcurrency()
+                : ((ThreadPoolExecutor) pool).getMaximumPoolSize();
+    }
+
+    private static long completedOf(ExecutorService pool) {
+        return pool instanceof VirtualThreadExecutor
+                ? ((VirtualThreadExecutor) pool).getCompletedTaskCount()
+                : ((ThreadPoolExecutor) pool).getCompletedTaskCount();
+    }
+
+    private static ThreadPoolExecutor newPool(String name, int threads) {
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                0,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamedThreadFactory(name));
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        private NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, String.format("rjb-%s-%d", name, threadNumber.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
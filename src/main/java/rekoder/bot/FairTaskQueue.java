@@ -0,0 +1,78 @@
+package rekoder.bot;
+
+import rekoder.util.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+// Queue per key, drained round-robin over the keys that have tasks waiting. It is not bounded:
+// RekoderBot coalesces update requests so that at most one task per judge is ever waiting
+class FairTaskQueue {
+    private final Map<String, ArrayDeque<QueuedTask>> queues = new HashMap<>();
+    private final ArrayDeque<String> ready = new ArrayDeque<>();
+    private int size;
+
+    synchronized void offer(String key, Runnable task) {
+        ArrayDeque<QueuedTask> queue = queues.computeIfAbsent(key, k -> {
+            Metrics.gauge(String.format("tasks.%s.queued", k), () -> depth(k));
+            return new ArrayDeque<>();
+        });
+        if (queue.isEmpty()) {
+            ready.addLast(key);
+        }
+        queue.addLast(new QueuedTask(task));
+        size++;
+        notifyAll();
+    }
+
+    synchronized Runnable take() throws InterruptedException {
+        while (ready.isEmpty()) {
+            wait();
+        }
+        String key = ready.pollFirst();
+        ArrayDeque<QueuedTask> queue = queues.get(key);
+        QueuedTask task = queue.pollFirst();
+        if (!queue.isEmpty()) {
+            ready.addLast(key);
+        }
+        size--;
+        // the wait also covers the time the dispatcher blocks for a free update slot
+        Metrics.Histogram wait = Metrics.histogram(String.format("tasks.%s.wait", key));
+        return () -> {
+            wait.recordSince(task.enqueuedNanos);
+            task.task.run();
+        };
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized int depth(String key) {
+        ArrayDeque<QueuedTask> queue = queues.get(key);
+        return queue == null ? 0 : queue.size();
+    }
+
+    synchronized String getStats() {
+        return new TreeSet<>(queues.keySet())
+                .stream()
+                .map(key -> {
+                    Metrics.Histogram wait = Metrics.histogram(String.format("tasks.%s.wait", key));
+                    return String.format("%s: queued %d, waited p50 %.2f ms, p99 %.2f ms",
+                            key, depth(key), wait.getP50Millis(), wait.getP99Millis());
+                })
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static class QueuedTask {
+        private final Runnable task;
+        private final long enqueuedNanos = System.nanoTime();
+
+        private QueuedTask(Runnable task) {
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package rekoder.bot;
+
+import rekoder.api.AsyncRekoderApi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+// Maps (parent folder, folder name) to folder id, persisted so contest folders are created once across runs.
+// Names are kept as the backend stores them, see RekoderApi.toFolderName
+class FolderRegistry {
+    private final Path file;
+    private final UnaryOperator<String> toFolderName;
+    private final Properties folders;
+    private final Map<String, CompletableFuture<Integer>> creating = new ConcurrentHashMap<>();
+
+    FolderRegistry(Path file, UnaryOperator<String> toFolderName) throws IOException {
+        this.file = file;
+        this.toFolderName = toFolderName;
+        this.folders = PropertiesFiles.read(file);
+    }
+
+    // replaces the known children of the parent folder with the backend listing
+    synchronized void load(int parentFolder, Map<String, Integer> children) throws IOException {
+        Properties updated = new Properties();
+        updated.putAll(folders);
+        String prefix = parentFolder + "/";
+        updated.keySet().removeIf(key -> ((String) key).startsWith(prefix));
+        children.forEach((name, id) -> updated.setProperty(prefix + name, Integer.toString(id)));
+        write(updated);
+        folders.clear();
+        folders.putAll(updated);
+    }
+
+    synchronized int size() {
+        return folders.size();
+    }
+
+    // concurrent misses for the same folder share one create call, a failed create is retried by the next miss
+    CompletableFuture<Integer> getOrCreate(AsyncRekoderApi api, int parentFolder, String name) {
+        String key = parentFolder + "/" + toFolderName.apply(name);
+        String known;
+        synchronized (this) {
+            known = folders.getProperty(key);
+        }
+        if (known != null) {
+            return CompletableFuture.completedFuture(Integer.parseInt(known));
+        }
+        CompletableFuture<Integer> created = new CompletableFuture<>();
+        CompletableFuture<Integer> running = creating.putIfAbsent(key, created);
+        if (running != null) {
+            return running;
+        }
+        synchronized (this) {
+            known = folders.getProperty(key);
+        }
+        if (known != null) {
+            creating.remove(key, created);
+            created.complete(Integer.parseInt(known));
+            return created;
+        }
+        api.addFolder(parentFolder, name).whenComplete((id, e) -> {
+            if (e == null) {
+                try {
+                    put(key, id);
+                } catch (IOException ignored) {
+                    // the folder stays known for this run and is listed from the backend on the next start
+                }
+            }
+            creating.remove(key, created);
+            if (e == null) {
+                created.complete(id);
+            } else {
+                created.completeExceptionally(e);
+            }
+        });
+        return created;
+    }
+
+    private synchronized void put(String key, int id) throws IOException {
+        folders.setProperty(key, Integer.toString(id));
+        write(folders);
+    }
+
+    private void write(Properties properties) throws IOException {
+        PropertiesFiles.write(file, properties, "Folder ids by parent folder id and name");
+    }
+}
@@ -1,6 +1,8 @@
 package rekoder.bot;
 
 import rekoder.ResultOrError;
+import rekoder.api.AsyncRekoderApi;
+import rekoder.api.AsyncRekoderApiAdapter;
 import rekoder.api.RekoderApi;
 import rekoder.api.RekoderApiOnline;
 import rekoder.bot.cli.CommandLineInterface;
@@ -8,13 +10,21 @@ import rekoder.bot.judges.CodeforcesInteractor;
 import rekoder.bot.judges.DummyJudgeInteractor;
 import rekoder.bot.judges.JudgeInteractor;
 import rekoder.bot.judges.LeetcodeInteractor;
-import rekoder.primitive.Problem;
+import rekoder.jfr.FlightRecording;
+import rekoder.jfr.UpdateTaskEvent;
+import rekoder.util.CircuitBreaker;
+import rekoder.util.Config;
+import rekoder.util.HttpResponseCache;
+import rekoder.util.Metrics;
 import rekoder.util.Util;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 import java.util.logging.Level;
@@ -23,12 +33,25 @@ import java.util.stream.Collectors;
 
 public class RekoderBot implements Runnable {
     private final Map<String, JudgeInteractorWrapper> interactors;
-    private final BlockingQueue<Runnable> tasks = new LinkedBlockingDeque<>();
+    private final FairTaskQueue tasks;
     private final Supplier<RekoderApi> apiSupplier;
     private final Logger logger;
     private final int PROBLEMS_LIMIT = 1200;
-
-    public static void main(String[] args) {
+    private static final String DEFAULT_STATE_DIR = ".rekoder";
+    private static final String LOCAL_JUDGE_NAME = "CF3";
+    private static final int DEFAULT_HTTP_CACHE_MAX_MEGABYTES = 256;
+    private final BotExecutors executors;
+    private final SyncCheckpointStore checkpoints;
+    private final Path stateDir;
+    private final Map<String, UploadedProblemIndex> uploadedProblems = new ConcurrentHashMap<>();
+    private final Map<String, FolderRegistry> folderRegistries = new ConcurrentHashMap<>();
+    private final FlightRecording flightRecording = new FlightRecording();
+    private final SyncScheduler scheduler;
+    private final Thread taskExecutor = new Thread(new TaskExecutor());
+    private RekoderApi api;
+    private AsyncRekoderApi asyncApi;
+
+    public static void main(String[] args) throws IOException {
         var bot = new RekoderBot(
                 List.of(
                         new CodeforcesInteractor(Logger.getGlobal()),
@@ -40,63 +63,102 @@ public class RekoderBot implements Runnable {
         bot.run();
     }
 
-    public RekoderBot(List<JudgeInteractor> interactors, Supplier<RekoderApi> apiSupplier, Logger logger) {
+    public RekoderBot(List<JudgeInteractor> interactors, Supplier<RekoderApi> apiSupplier, Logger logger) throws IOException {
         this.apiSupplier = apiSupplier;
         this.logger = logger;
+        this.executors = new BotExecutors(logger);
+        this.tasks = new FairTaskQueue();
+        this.stateDir = Path.of(Config.getString("rekoder.stateDir", DEFAULT_STATE_DIR));
+        this.checkpoints = new SyncCheckpointStore(stateDir.resolve("checkpoints.properties"));
+        Util.setResponseCache(new HttpResponseCache(
+                Path.of(Config.getString("rekoder.http.cacheDir", stateDir.resolve("http-cache").toString())),
+                Config.getInt("rekoder.http.cacheMaxMegabytes", DEFAULT_HTTP_CACHE_MAX_MEGABYTES) * 1024L * 1024L));
         this.interactors = new HashMap<>();
         for (JudgeInteractor interactor : interactors) {
-            this.interactors.put(interactor.getName(), new JudgeInteractorWrapper(interactor));
+            interactor.setExecutor(executors.judgeIo());
+            JudgeInteractorWrapper wrapper = new JudgeInteractorWrapper(interactor);
+            checkpoints.get(interactor.getName()).ifPresent(wrapper::update);
+            this.interactors.put(interactor.getName(), wrapper);
         }
+        this.scheduler = new SyncScheduler(
+                interactors.stream().filter(JudgeInteractor::isPolled).map(JudgeInteractor::getName).collect(Collectors.toList()),
+                this::requestUpdate,
+                logger);
     }
 
     @Override
     public void run() {
+        start();
         Map<String, CommandLineInterface.CliHandler> cliCommands = Map.of(
                 "list", new ListHandler(),
                 "update", new UpdateHandler(),
-                "tasks", new TasksHandler()
+                "tasks", new TasksHandler(),
+                "stats", new StatsHandler(),
+                "jfr", new RecordingHandler(),
+                "pause", new PauseHandler(),
+                "resume", new ResumeHandler()
         );
 
-        ExecutorService executorService = new ThreadPoolExecutor(
-                1,
-                10,
-                10,
-                TimeUnit.SECONDS,
-                new LinkedTransferQueue<>(),
-                new ThreadPoolExecutor.CallerRunsPolicy());
-
         Thread cli = new Thread(new CommandLineInterface(
                 "RJB",
                 cliCommands,
                 Logger.getGlobal()));
-        Thread taskExecutor = new Thread(new TaskExecutor(executorService));
-
-        taskExecutor.start();
         cli.start();
         try {
             cli.join();
-            taskExecutor.interrupt();
-            taskExecutor.join();
         } catch (InterruptedException e) {
             logger.log(Level.WARNING, "Unexpected interrupt: " + e.getMessage());
         }
+        stop();
+    }
 
-        executorService.shutdown();
+    void start() {
+        api = apiSupplier.get();
+        api.setBatchExecutor(executors.apiIo());
+        asyncApi = new AsyncRekoderApiAdapter(api, executors.apiIo());
+        try {
+            loadFolderRegistry(LOCAL_JUDGE_NAME, api.getUserRootFolderId(LOCAL_JUDGE_NAME));
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, String.format("Failed to load folders of %s, the first update retries: %s",
+                    LOCAL_JUDGE_NAME, e.getMessage()));
+        }
+        Metrics.gauge("tasks.queued", tasks::size);
+        taskExecutor.start();
+        scheduler.start();
     }
 
-    private class TaskExecutor implements Runnable {
-        private final ExecutorService executor;
+    void stop() {
+        scheduler.shutdown();
+        taskExecutor.interrupt();
+        try {
+            taskExecutor.join();
+        } catch (InterruptedException e) {
+            logger.log(Level.WARNING, "Unexpected interrupt: " + e.getMessage());
+        }
 
-        private TaskExecutor(ExecutorService executor) {
-            this.executor = executor;
+        executors.shutdown(1, TimeUnit.MINUTES);
+        for (UploadedProblemIndex index : uploadedProblems.values()) {
+            try {
+                index.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to close uploaded problems index: " + e.getMessage());
+            }
         }
+        try {
+            api.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to close API: " + e.getMessage());
+        }
+        Util.shutdown();
+    }
 
+    private class TaskExecutor implements Runnable {
         @Override
         public void run() {
             while (true) {
                 try {
                     var task = tasks.take();
-                    executor.submit(task);
+                    executors.submitUpdate(task);
                 } catch (InterruptedException e) {
                     break;
                 }
@@ -111,18 +173,25 @@ public class RekoderBot implements Runnable {
     private class ListHandler implements CommandLineInterface.CliHandler {
         @Override
         public ResultOrError<String> handle(String[] args) {
-            return new ResultOrError<>(
-                    interactors
-                            .values()
-                            .stream()
-                            .map(i -> i.interactor.getName() + ", updated: " + i.getUpdateString())
-                            .collect(Collectors.joining("\n"))
-            );
+            String judges = interactors
+                    .values()
+                    .stream()
+                    .map(i -> String.format("%s, updated: %s, polling: %s",
+                            i.interactor.getName(), i.getUpdateString(), scheduler.getState(i.interactor.getName())))
+                    .collect(Collectors.joining("\n"));
+            String circuitBreakers = CircuitBreaker.all()
+                    .values()
+                    .stream()
+                    .map(CircuitBreaker::toString)
+                    .collect(Collectors.joining("\n"));
+            return new ResultOrError<>(circuitBreakers.isEmpty()
+                    ? judges
+                    : judges + "\nCircuit breakers:\n" + circuitBreakers);
         }
 
         @Override
         public String getHelp() {
-            return "Get list of all active judge interactors";
+            return "Get list of all active judge interactors, their polling schedule and circuit breaker states";
         }
 
         @Override
@@ -134,12 +203,16 @@ public class RekoderBot implements Runnable {
     private class TasksHandler implements CommandLineInterface.CliHandler {
         @Override
         public ResultOrError<String> handle(String[] args) {
-            return new ResultOrError<>(String.format("Queued tasks: %d", tasks.size()));
+            return new ResultOrError<>(String.format("Queued tasks: %d\n%s\n%s\nJudge request slots:\n%s",
+                    tasks.size(),
+                    tasks.getStats(),
+                    executors.getStats(),
+                    Util.getRateLimiterStats()));
         }
 
         @Override
         public String getHelp() {
-            return "Get queued tasks count";
+            return "Get queued tasks count and wait time per judge and executor load";
         }
 
         @Override
@@ -148,6 +221,101 @@ public class RekoderBot implements Runnable {
         }
     }
 
+    private class StatsHandler implements CommandLineInterface.CliHandler {
+        @Override
+        public ResultOrError<String> handle(String[] args) {
+            return new ResultOrError<>(Metrics.getStats());
+        }
+
+        @Override
+        public String getHelp() {
+            return "Get request latencies, problem counters and executor queue depth";
+        }
+
+        @Override
+        public List<String> getParams() {
+            return List.of();
+        }
+    }
+
+    private class RecordingHandler implements CommandLineInterface.CliHandler {
+        @Override
+        public ResultOrError<String> handle(String[] args) {
+            if (args.length < 1) {
+                return new ResultOrError<>(flightRecording.getStatus());
+            }
+            try {
+                switch (args[0]) {
+                    case "start":
+                        return new ResultOrError<>(flightRecording.start(args.length > 1 ? args[1] : "default"));
+                    case "dump":
+                        if (args.length < 2) {
+                            return new ResultOrError<>(Level.INFO, "File name is required as second argument");
+                        }
+                        return new ResultOrError<>(flightRecording.dump(Path.of(args[1])));
+                    case "stop":
+                        return new ResultOrError<>(flightRecording.stop());
+                    default:
+                        return new ResultOrError<>(Level.INFO, "Unknown action: '" + args[0] + "'");
+                }
+            } catch (IOException e) {
+                return new ResultOrError<>(Level.WARNING, "Flight recording failed: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public String getHelp() {
+            return "Start, dump or stop a flight recording of update tasks, judge requests, parsing and API calls";
+        }
+
+        @Override
+        public List<String> getParams() {
+            return List.of("start [settings] | dump <file> | stop");
+        }
+    }
+
+    private class PauseHandler implements CommandLineInterface.CliHandler {
+        @Override
+        public ResultOrError<String> handle(String[] args) {
+            List<String> paused = scheduler.pause(args.length < 1 ? null : args[0]);
+            if (paused.isEmpty()) {
+                return new ResultOrError<>(Level.INFO, args.length < 1 ? "No judge is polled" : "Judge is not polled: '" + args[0] + "'");
+            }
+            return new ResultOrError<>("Polling paused: " + String.join(", ", paused));
+        }
+
+        @Override
+        public String getHelp() {
+            return "Pause periodic polling of one judge or of all judges";
+        }
+
+        @Override
+        public List<String> getParams() {
+            return List.of("[judge name]");
+        }
+    }
+
+    private class ResumeHandler implements CommandLineInterface.CliHandler {
+        @Override
+        public ResultOrError<String> handle(String[] args) {
+            List<String> resumed = scheduler.resume(args.length < 1 ? null : args[0]);
+            if (resumed.isEmpty()) {
+                return new ResultOrError<>(Level.INFO, args.length < 1 ? "No judge is polled" : "Judge is not polled: '" + args[0] + "'");
+            }
+            return new ResultOrError<>("Polling resumed: " + String.join(", ", resumed));
+        }
+
+        @Override
+        public String getHelp() {
+            return "Resume periodic polling of one judge or of all judges, paused judges are polled right away";
+        }
+
+        @Override
+        public List<String> getParams() {
+            return List.of("[judge name]");
+        }
+    }
+
     private class UpdateHandler implements CommandLineInterface.CliHandler {
         @Override
         public ResultOrError<String> handle(String[] args) {
@@ -158,91 +326,7 @@ public class RekoderBot implements Runnable {
             if (!interactors.containsKey(judgeName)) {
                 return new ResultOrError<>(Level.INFO, "Judge does not exist: '" + judgeName + "'");
             }
-            JudgeInteractor interactor = interactors.get(judgeName).interactor;
-            LocalDateTime lastUpdate = interactors.get(judgeName).lastUpdate;
-            assert interactors.get(judgeName) != null;
-
-            tasks.add(() -> {
-                try {
-                    LocalDateTime curTime = LocalDateTime.now();
-                    List<Problem> problemList = interactor.getProblemsInInterval(lastUpdate, curTime, PROBLEMS_LIMIT);
-                    interactors.get(judgeName).update(curTime);
-
-                    final String localJudgeName = "CF3";
-
-                    RekoderApi api = apiSupplier.get();
-                    int judgeRootId = api.getUserRootFolderId(localJudgeName);
-
-                    Set<String> allContests = problemList.stream()
-                            .flatMap(problem -> Optional.ofNullable(problem.contest).stream())
-                            .collect(Collectors.toUnmodifiableSet());
-                    Map<String, Integer> folderId = new ConcurrentHashMap<>();
-                    {
-                        List<Runnable> addFolderTasks = new ArrayList<>();
-                        for (String contestName : allContests) {
-                            addFolderTasks.add(() -> {
-                                try {
-                                    folderId.put(contestName, api.addFolder(judgeRootId, contestName));
-                                } catch (IOException e) {
-                                    logger.warning(String.format("Failed to add folder '%s' to %s. %s", contestName, judgeName, e));
-                                }
-                            });
-                        }
-                        executeAllWithThreadPool(addFolderTasks);
-                    }
-
-                    Set<Problem> uniqueProblems = new HashSet<>(problemList);
-                    Map<Problem, Integer> problemId = new ConcurrentHashMap<>();
-                    {
-                        List<Runnable> addProblemTasks = new ArrayList<>();
-                        for (Problem uniqueProblem : uniqueProblems) {
-                            addProblemTasks.add(() -> {
-                                try {
-                                    problemId.put(uniqueProblem, api.addProblem(localJudgeName, uniqueProblem));
-                                } catch (IOException e) {
-                                    logger.warning(String.format("Failed to add problem %s to %s. %s", uniqueProblem.name, judgeName, e));
-                                }
-                            });
-                        }
-                        executeAllWithThreadPool(addProblemTasks);
-                    }
-
-                    {
-                        List<Runnable> putProblemTasks = new ArrayList<>();
-                        for (Problem problem : problemList) {
-                            putProblemTasks.add(() -> {
-                                if (problem.contest != null && !folderId.containsKey(problem.contest)) {
-                                    logger.warning(String.format("Failed to put problem %s to %s. Folder was not added",
-                                            problem.name,
-                                            problem.contest));
-                                } else {
-                                    int folderToAddProblemId = problem.contest == null
-                                            ? judgeRootId
-                                            : folderId.get(problem.contest);
-                                    try {
-                                        api.putProblem(folderToAddProblemId, problemId.get(problem));
-                                    } catch (IOException e) {
-                                        logger.warning(String.format("Failed to put problem %s to %d. %s", problem.name, judgeRootId, e));
-                                    }
-                                }
-                            });
-                        }
-                        executeAllWithThreadPool(putProblemTasks);
-                    }
-                } catch (IOException e) {
-                    logger.log(Level.WARNING, String.format("Update was not successful: %s", Util.formatThrowable(e)));
-                } catch (UnsupportedOperationException e) {
-                    logger.log(
-                            Level.INFO,
-                            String.format("Interactor '%s' does not support this operation, stack trace:\n%s",
-                                    interactor.getName(),
-                                    Arrays.stream(e.getStackTrace())
-                                            .map(StackTraceElement::toString)
-                                            .collect(Collectors.joining("\n"))));
-                }
-            });
-
-            return new ResultOrError<>("");
+            return new ResultOrError<>(requestUpdate(judgeName));
         }
 
         @Override
@@ -256,39 +340,187 @@ public class RekoderBot implements Runnable {
         }
     }
 
-    private void executeAllWithThreadPool(List<Runnable> tasks) {
-        ExecutorService executorService = Executors.newFixedThreadPool(8);
-        List<Future<?>> futures = new ArrayList<>();
-        for (Runnable task : tasks) {
-            futures.add(executorService.submit(task));
+    // at most one update per judge is queued or running, requests made meanwhile join it or a single follow-up
+    private String requestUpdate(String judgeName) {
+        JudgeInteractorWrapper wrapper = interactors.get(judgeName);
+        switch (wrapper.requestUpdate()) {
+            case IDLE:
+                submitUpdate(judgeName);
+                return "Update of " + judgeName + " queued";
+            case RUNNING:
+                return "Update of " + judgeName + " is running, another one will follow it";
+            case RUNNING_WITH_FOLLOW_UP:
+                return "Update of " + judgeName + " is running and a follow-up is already scheduled, joined it";
+            default:
+                return "Update of " + judgeName + " is already queued, joined it";
         }
-        for (Future<?> future : futures) {
-            try {
-                future.get();
-            } catch (InterruptedException | ExecutionException e) {
-                logger.info("Future.get was interrupted");
+    }
+
+    // one whole update of the judge on the calling thread, null when it failed before the upload stage
+    UpdatePipeline.Summary runUpdate(String judgeName) {
+        JudgeInteractorWrapper wrapper = interactors.get(judgeName);
+        wrapper.startUpdate();
+        try {
+            return runUpdate(judgeName, wrapper);
+        } finally {
+            if (wrapper.finishUpdate()) {
+                submitUpdate(judgeName);
+            }
+        }
+    }
+
+    private void submitUpdate(String judgeName) {
+        tasks.offer(judgeName, () -> runUpdate(judgeName));
+    }
+
+    private UpdatePipeline.Summary runUpdate(String judgeName, JudgeInteractorWrapper wrapper) {
+        JudgeInteractor interactor = wrapper.interactor;
+        LocalDateTime lastUpdate = wrapper.getLastUpdate();
+        UpdateTaskEvent event = new UpdateTaskEvent();
+        event.begin();
+        event.judge = judgeName;
+        int newProblems = -1;
+        UpdatePipeline.Summary summary = null;
+        try {
+            LocalDateTime curTime = LocalDateTime.now();
+            List<String> problemUrls = interactor.getProblemUrlsInInterval(lastUpdate, curTime, PROBLEMS_LIMIT);
+            event.problemUrls = problemUrls.size();
+
+            int judgeRootId = api.getUserRootFolderId(LOCAL_JUDGE_NAME);
+
+            summary = new UpdatePipeline(
+                    asyncApi,
+                    executors.worker(),
+                    getUploadedProblemIndex(LOCAL_JUDGE_NAME),
+                    getFolderRegistry(LOCAL_JUDGE_NAME, judgeRootId),
+                    LOCAL_JUDGE_NAME,
+                    judgeRootId,
+                    logger
+            ).run(interactor, problemUrls);
+            logger.log(Level.INFO, String.format("Update of %s finished, %s", judgeName, summary));
+            event.fetched = summary.fetched;
+            event.uploaded = summary.uploaded;
+            event.reused = summary.reused;
+            event.skipped = summary.skipped;
+            event.failed = summary.failed;
+            event.outcome = summary.failed == 0 ? "ok" : "failures";
+            if (summary.failed == 0) {
+                // reused problems were only put again, a window kept by an earlier failure brings them back every time
+                newProblems = Math.max(0, summary.uploaded - summary.reused);
+                if (wrapper.update(curTime)) {
+                    checkpoints.put(judgeName, curTime);
+                }
+            } else {
+                logger.log(Level.WARNING, String.format("Sync watermark of %s is kept at %s because of failures",
+                        judgeName, wrapper.getUpdateString()));
             }
+        } catch (IOException e) {
+            event.outcome = e.getClass().getSimpleName();
+            logger.log(Level.WARNING, String.format("Update was not successful: %s", Util.formatThrowable(e)));
+        } catch (UnsupportedOperationException e) {
+            event.outcome = e.getClass().getSimpleName();
+            logger.log(
+                    Level.INFO,
+                    String.format("Interactor '%s' does not support this operation, stack trace:\n%s",
+                            interactor.getName(),
+                            Arrays.stream(e.getStackTrace())
+                                    .map(StackTraceElement::toString)
+                                    .collect(Collectors.joining("\n"))));
+            scheduler.pause(judgeName);
+        } finally {
+            event.commit();
+            scheduler.onUpdateFinished(judgeName, newProblems);
+        }
+        return summary;
+    }
+
+    private UploadedProblemIndex getUploadedProblemIndex(String user) throws IOException {
+        try {
+            return uploadedProblems.computeIfAbsent(user, u -> {
+                try {
+                    return new UploadedProblemIndex(stateDir.resolve(String.format("uploaded-problems-%s.idx", u)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // loaded by start, or by the first update when the backend could not be reached then
+    private FolderRegistry getFolderRegistry(String user, int rootFolderId) throws IOException {
+        FolderRegistry registry = folderRegistries.get(user);
+        return registry != null ? registry : loadFolderRegistry(user, rootFolderId);
+    }
+
+    // replaces the local folder ids under the root folder with the backend listing, the first registry published wins
+    private FolderRegistry loadFolderRegistry(String user, int rootFolderId) throws IOException {
+        FolderRegistry registry = new FolderRegistry(stateDir.resolve(String.format("folders-%s.properties", user)), api::toFolderName);
+        try {
+            registry.load(rootFolderId, api.listFolders(rootFolderId));
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, String.format("Failed to list folders of %s, using %d locally known folders: %s",
+                    user, registry.size(), e.getMessage()));
         }
+        FolderRegistry published = folderRegistries.putIfAbsent(user, registry);
+        return published != null ? published : registry;
+    }
+
+    private enum UpdateState {
+        IDLE, QUEUED, RUNNING, RUNNING_WITH_FOLLOW_UP
     }
 
     private static class JudgeInteractorWrapper {
-        public LocalDateTime lastUpdate;
+        private final AtomicReference<LocalDateTime> lastUpdate = new AtomicReference<>(LocalDateTime.MIN);
+        private UpdateState updateState = UpdateState.IDLE;
         public final JudgeInteractor interactor;
 
         public JudgeInteractorWrapper(JudgeInteractor interactor) {
-            this.lastUpdate = LocalDateTime.MIN;
             this.interactor = interactor;
         }
 
-        public void update(LocalDateTime time) {
-            this.lastUpdate = time;
+        public LocalDateTime getLastUpdate() {
+            return lastUpdate.get();
+        }
+
+        // advances the watermark unless a concurrent writer already moved it further, returns whether it moved
+        public boolean update(LocalDateTime time) {
+            LocalDateTime previous = lastUpdate.getAndAccumulate(time, (current, next) -> next.isAfter(current) ? next : current);
+            return time.isAfter(previous);
+        }
+
+        // returns the state before the request, IDLE means the caller has to submit the update task
+        public synchronized UpdateState requestUpdate() {
+            UpdateState previous = updateState;
+            if (previous == UpdateState.IDLE) {
+                updateState = UpdateState.QUEUED;
+            } else if (previous == UpdateState.RUNNING) {
+                updateState = UpdateState.RUNNING_WITH_FOLLOW_UP;
+            }
+            return previous;
+        }
+
+        public synchronized void startUpdate() {
+            updateState = UpdateState.RUNNING;
+        }
+
+        // returns whether a follow-up update was requested while this one was running and has to be submitted
+        public synchronized boolean finishUpdate() {
+            if (updateState == UpdateState.RUNNING_WITH_FOLLOW_UP) {
+                updateState = UpdateState.QUEUED;
+                return true;
+            }
+            updateState = UpdateState.IDLE;
+            return false;
         }
 
         public String getUpdateString() {
-            if (lastUpdate.equals(LocalDateTime.MIN)) {
+            LocalDateTime time = lastUpdate.get();
+            if (time.equals(LocalDateTime.MIN)) {
                 return "never";
             }
-            return lastUpdate.toString();
+            return time.toString();
         }
     }
 }
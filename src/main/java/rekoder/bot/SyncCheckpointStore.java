@@ -0,0 +1,38 @@
+package rekoder.bot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.Properties;
+
+class SyncCheckpointStore {
+    private final Path file;
+    private final Properties checkpoints;
+
+    SyncCheckpointStore(Path file) throws IOException {
+        this.file = file;
+        this.checkpoints = PropertiesFiles.read(file);
+    }
+
+    synchronized Optional<LocalDateTime> get(String judgeName) {
+        String value = checkpoints.getProperty(judgeName);
+        if (value == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LocalDateTime.parse(value));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    synchronized void put(String judgeName, LocalDateTime watermark) throws IOException {
+        Properties updated = new Properties();
+        updated.putAll(checkpoints);
+        updated.setProperty(judgeName, watermark.toString());
+        PropertiesFiles.write(file, updated, "Last successful sync per judge");
+        checkpoints.setProperty(judgeName, watermark.toString());
+    }
+}
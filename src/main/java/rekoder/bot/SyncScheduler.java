@@ -0,0 +1,167 @@
+package rekoder.bot;
+
+import rekoder.util.Config;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Polls every judge on its own interval, halved after an update that added new problems
+// and doubled after an empty or failed one, within [minIntervalSecs, maxIntervalSecs]
+class SyncScheduler {
+    public static final int DEFAULT_INTERVAL_SECS = 30 * 60;
+    public static final int DEFAULT_MIN_INTERVAL_SECS = 5 * 60;
+    public static final int DEFAULT_MAX_INTERVAL_SECS = 6 * 60 * 60;
+
+    private final Consumer<String> trigger;
+    private final Logger logger;
+    private final long minIntervalSecs;
+    private final long maxIntervalSecs;
+    private final Map<String, JudgeSchedule> schedules = new TreeMap<>();
+    private final ScheduledExecutorService timer;
+
+    SyncScheduler(Collection<String> judges, Consumer<String> trigger, Logger logger) {
+        this.trigger = trigger;
+        this.logger = logger;
+        this.minIntervalSecs = Math.max(1, Config.getInt("rekoder.scheduler.minIntervalSecs", DEFAULT_MIN_INTERVAL_SECS));
+        this.maxIntervalSecs = Math.max(minIntervalSecs, Config.getInt("rekoder.scheduler.maxIntervalSecs", DEFAULT_MAX_INTERVAL_SECS));
+        long intervalSecs = clamp(Config.getInt("rekoder.scheduler.intervalSecs", DEFAULT_INTERVAL_SECS));
+        boolean paused = !Config.getBoolean("rekoder.scheduler.enabled", false);
+        for (String judge : judges) {
+            schedules.put(judge, new JudgeSchedule(intervalSecs, paused));
+        }
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "rjb-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        this.timer = timer;
+    }
+
+    synchronized void start() {
+        schedules.forEach((judge, schedule) -> {
+            if (!schedule.paused) {
+                schedule(judge, schedule, 0);
+            }
+        });
+    }
+
+    // called after every update of the judge, scheduled or not, with -1 new problems when any problem failed
+    synchronized void onUpdateFinished(String judge, int newProblems) {
+        JudgeSchedule schedule = schedules.get(judge);
+        if (schedule == null) {
+            return;
+        }
+        schedule.intervalSecs = clamp(newProblems > 0 ? schedule.intervalSecs / 2 : schedule.intervalSecs * 2);
+        if (!schedule.paused) {
+            schedule(judge, schedule, schedule.intervalSecs);
+        }
+    }
+
+    synchronized List<String> pause(String judge) {
+        List<String> paused = select(judge);
+        for (String name : paused) {
+            JudgeSchedule schedule = schedules.get(name);
+            schedule.paused = true;
+            cancel(schedule);
+        }
+        return paused;
+    }
+
+    synchronized List<String> resume(String judge) {
+        List<String> resumed = select(judge);
+        for (String name : resumed) {
+            JudgeSchedule schedule = schedules.get(name);
+            if (schedule.paused) {
+                schedule.paused = false;
+                schedule(name, schedule, 0);
+            }
+        }
+        return resumed;
+    }
+
+    synchronized String getState(String judge) {
+        JudgeSchedule schedule = schedules.get(judge);
+        if (schedule == null) {
+            return "not scheduled";
+        }
+        if (schedule.paused) {
+            return String.format("paused, interval %s", Duration.ofSeconds(schedule.intervalSecs));
+        }
+        return String.format("interval %s, next poll %s",
+                Duration.ofSeconds(schedule.intervalSecs),
+                schedule.nextPoll == null ? "after the running update" : schedule.nextPoll.withNano(0).toString());
+    }
+
+    synchronized void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private List<String> select(String judge) {
+        if (judge == null) {
+            return List.copyOf(schedules.keySet());
+        }
+        return schedules.containsKey(judge) ? List.of(judge) : List.of();
+    }
+
+    private void schedule(String judge, JudgeSchedule schedule, long delaySecs) {
+        cancel(schedule);
+        if (timer.isShutdown()) {
+            return;
+        }
+        schedule.nextPoll = LocalDateTime.now().plusSeconds(delaySecs);
+        schedule.next = timer.schedule(() -> poll(judge), delaySecs, TimeUnit.SECONDS);
+    }
+
+    private void cancel(JudgeSchedule schedule) {
+        if (schedule.next != null) {
+            schedule.next.cancel(false);
+        }
+        schedule.next = null;
+        schedule.nextPoll = null;
+    }
+
+    private void poll(String judge) {
+        synchronized (this) {
+            JudgeSchedule schedule = schedules.get(judge);
+            if (schedule.paused) {
+                return;
+            }
+            schedule.next = null;
+            schedule.nextPoll = null;
+        }
+        try {
+            trigger.accept(judge);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, String.format("Scheduled update of %s failed to start: %s", judge, e.getMessage()));
+            onUpdateFinished(judge, -1);
+        }
+    }
+
+    private long clamp(long intervalSecs) {
+        return Math.min(maxIntervalSecs, Math.max(minIntervalSecs, intervalSecs));
+    }
+
+    private static class JudgeSchedule {
+        private long intervalSecs;
+        private boolean paused;
+        private ScheduledFuture<?> next;
+        private LocalDateTime nextPoll;
+
+        private JudgeSchedule(long intervalSecs, boolean paused) {
+            this.intervalSecs = intervalSecs;
+            this.paused = paused;
+        }
+    }
+}
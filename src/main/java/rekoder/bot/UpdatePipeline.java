@@ -0,0 +1,264 @@
+package rekoder.bot;
+
+import rekoder.ResultOrError;
+import rekoder.api.AsyncRekoderApi;
+import rekoder.bot.judges.JudgeInteractor;
+import rekoder.primitive.Problem;
+import rekoder.primitive.ProblemFingerprint;
+import rekoder.util.Config;
+import rekoder.util.Metrics;
+import rekoder.util.Util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+class UpdatePipeline {
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    public static final int DEFAULT_PUT_BATCH_SIZE = 32;
+
+    private static final ResultOrError<Problem> END_OF_PROBLEMS = new ResultOrError<>(null);
+    private static final long HAND_OVER_CHECK_MILLIS = 100;
+
+    private final AsyncRekoderApi api;
+    private final ExecutorService dispatcher;
+    private final UploadedProblemIndex uploadedProblems;
+    private final FolderRegistry folders;
+    private final String user;
+    private final int rootFolderId;
+    private final Logger logger;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final int putBatchSize;
+    private final Map<Integer, List<PendingPut>> pendingPuts = new HashMap<>();
+    private final ConcurrentLinkedQueue<CompletableFuture<Void>> puts = new ConcurrentLinkedQueue<>();
+    private final BlockingQueue<ResultOrError<Problem>> parsedProblems;
+    private final Map<Problem, CompletableFuture<Integer>> problemIds = new ConcurrentHashMap<>();
+    private final AtomicInteger fetched = new AtomicInteger();
+    private final AtomicInteger uploaded = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger reused = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    UpdatePipeline(AsyncRekoderApi api,
+                   ExecutorService dispatcher,
+                   UploadedProblemIndex uploadedProblems,
+                   FolderRegistry folders,
+                   String user,
+                   int rootFolderId,
+                   Logger logger) {
+        this.api = api;
+        this.dispatcher = dispatcher;
+        this.uploadedProblems = uploadedProblems;
+        this.folders = folders;
+        this.user = user;
+        this.rootFolderId = rootFolderId;
+        this.logger = logger;
+        this.maxInFlight = Math.max(1, Config.getInt("rekoder.pipeline.maxInFlight", DEFAULT_MAX_IN_FLIGHT));
+        this.inFlight = new Semaphore(maxInFlight);
+        this.putBatchSize = Math.max(1, Config.getInt("rekoder.pipeline.putBatchSize", DEFAULT_PUT_BATCH_SIZE));
+        this.parsedProblems = new ArrayBlockingQueue<>(
+                Math.max(1, Config.getInt("rekoder.pipeline.queueCapacity", DEFAULT_QUEUE_CAPACITY)));
+    }
+
+    Summary run(JudgeInteractor interactor, List<String> urls) throws IOException {
+        Future<?> uploadStage = dispatcher.submit(this::runUploadStage);
+        try {
+            try {
+                interactor.getProblemsByUrls(urls, (index, url, result) -> handOver(uploadStage, result));
+            } finally {
+                try {
+                    handOver(uploadStage, END_OF_PROBLEMS);
+                } catch (UploadStageStopped ignored) {
+                }
+                try {
+                    uploadStage.get();
+                } catch (ExecutionException e) {
+                    // nothing after the crash was uploaded, so the update must not count as a success
+                    throw new IOException(String.format("Upload stage of %s failed: %s",
+                            interactor.getName(), Util.formatThrowable(e.getCause())));
+                }
+            }
+        } catch (InterruptedException e) {
+            uploadStage.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException(String.format("Update of %s was interrupted", interactor.getName()));
+        }
+        return new Summary(fetched.get(), uploaded.get(), reused.get(), skipped.get(), failed.get());
+    }
+
+    // a dead upload stage takes nothing from the queue, the fetch is aborted rather than left blocked holding host permits
+    private void handOver(Future<?> uploadStage, ResultOrError<Problem> result) throws InterruptedException {
+        do {
+            if (uploadStage.isDone()) {
+                throw new UploadStageStopped();
+            }
+        } while (!parsedProblems.offer(result, HAND_OVER_CHECK_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    private Void runUploadStage() throws InterruptedException, ExecutionException {
+        while (true) {
+            ResultOrError<Problem> result = parsedProblems.take();
+            if (result == END_OF_PROBLEMS) {
+                inFlight.acquire(maxInFlight);
+                flushPuts();
+                CompletableFuture.allOf(puts.toArray(CompletableFuture[]::new)).get();
+                return null;
+            }
+            if (result.isError) {
+                if (result.getErrorLevel() == Level.INFO) {
+                    skipped.incrementAndGet();
+                    Metrics.counter("problems.skipped").increment();
+                } else {
+                    failed.incrementAndGet();
+                    Metrics.counter("problems.failed").increment();
+                }
+                logger.log(result.getErrorLevel(), result.getErrorMessage());
+                continue;
+            }
+            fetched.incrementAndGet();
+            Metrics.counter("problems.fetched").increment();
+            inFlight.acquire();
+            upload(result.getResult()).whenComplete((ignored, e) -> inFlight.release());
+        }
+    }
+
+    // completes once the problem is added and waits for its folder's next putProblems batch
+    private CompletableFuture<Void> upload(Problem problem) {
+        CompletableFuture<Integer> folderId = problem.contest == null
+                ? CompletableFuture.completedFuture(rootFolderId)
+                : folders.getOrCreate(api, rootFolderId, problem.contest);
+        CompletableFuture<Integer> problemId = problemIds.computeIfAbsent(problem, this::addProblemIfNotUploaded);
+        return folderId
+                .thenCombine(problemId, (folder, id) -> {
+                    queuePut(folder, new PendingPut(problem, id));
+                    return (Void) null;
+                })
+                .exceptionally(e -> {
+                    onUploadFailed(problem, e);
+                    return null;
+                });
+    }
+
+    private void queuePut(int folderId, PendingPut put) {
+        List<PendingPut> batch;
+        synchronized (pendingPuts) {
+            List<PendingPut> pending = pendingPuts.computeIfAbsent(folderId, id -> new ArrayList<>());
+            pending.add(put);
+            if (pending.size() < putBatchSize) {
+                return;
+            }
+            batch = pendingPuts.remove(folderId);
+        }
+        putAll(folderId, batch);
+    }
+
+    private void flushPuts() {
+        Map<Integer, List<PendingPut>> batches;
+        synchronized (pendingPuts) {
+            batches = new HashMap<>(pendingPuts);
+            pendingPuts.clear();
+        }
+        batches.forEach(this::putAll);
+    }
+
+    private void putAll(int folderId, List<PendingPut> batch) {
+        List<Integer> problemIds = batch.stream().map(put -> put.problemId).collect(Collectors.toList());
+        puts.add(api.putProblems(folderId, problemIds).handle((ignored, e) -> {
+            for (PendingPut put : batch) {
+                if (e == null) {
+                    uploaded.incrementAndGet();
+                    Metrics.counter("problems.uploaded").increment();
+                } else {
+                    onUploadFailed(put.problem, e);
+                }
+            }
+            return null;
+        }));
+    }
+
+    private void onUploadFailed(Problem problem, Throwable e) {
+        failed.incrementAndGet();
+        Metrics.counter("problems.failed").increment();
+        logger.warning(String.format("Failed to upload problem %s to %s. %s", problem.name, user, unwrap(e)));
+    }
+
+    private CompletableFuture<Integer> addProblemIfNotUploaded(Problem problem) {
+        ProblemFingerprint fingerprint = ProblemFingerprint.of(problem);
+        OptionalInt uploadedId = uploadedProblems.get(fingerprint);
+        if (uploadedId.isPresent()) {
+            reused.incrementAndGet();
+            Metrics.counter("problems.reused").increment();
+            return CompletableFuture.completedFuture(uploadedId.getAsInt());
+        }
+        return api.addProblem(user, problem).thenApply(id -> {
+            try {
+                uploadedProblems.put(fingerprint, id);
+            } catch (IOException e) {
+                logger.warning(String.format("Failed to record uploaded problem %s. %s", problem.name, e));
+            }
+            return id;
+        });
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    private static class UploadStageStopped extends RuntimeException {
+        private UploadStageStopped() {
+            super("Upload stage stopped");
+        }
+    }
+
+    private static class PendingPut {
+        private final Problem problem;
+        private final int problemId;
+
+        private PendingPut(Problem problem, int problemId) {
+            this.problem = problem;
+            this.problemId = problemId;
+        }
+    }
+
+    static class Summary {
+        final int fetched;
+        final int uploaded;
+        final int reused;
+        final int skipped;
+        final int failed;
+
+        private Summary(int fetched, int uploaded, int reused, int skipped, int failed) {
+            this.fetched = fetched;
+            this.uploaded = uploaded;
+            this.reused = reused;
+            this.skipped = skipped;
+            this.failed = failed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("fetched: %d, uploaded: %d, reused: %d, skipped: %d, failed: %d",
+                    fetched, uploaded, reused, skipped, failed);
+        }
+    }
+}
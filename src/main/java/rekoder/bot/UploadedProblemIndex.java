@@ -0,0 +1,115 @@
+package rekoder.bot;
+
+import rekoder.primitive.ProblemFingerprint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.OptionalInt;
+
+class UploadedProblemIndex implements AutoCloseable {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_ID = Integer.MIN_VALUE;
+    private static final int RECORD_BYTES = 2 * Long.BYTES + Integer.BYTES;
+
+    private final DataOutputStream journal;
+    private long[] highs;
+    private long[] lows;
+    private int[] ids;
+    private int size;
+
+    UploadedProblemIndex(Path file) throws IOException {
+        allocate(INITIAL_CAPACITY);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        if (Files.exists(file)) {
+            long records = Files.size(file) / RECORD_BYTES;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                for (long i = 0; i < records; i++) {
+                    long high = in.readLong();
+                    long low = in.readLong();
+                    int id = in.readInt();
+                    insert(high, low, id);
+                }
+            }
+            // drop a record torn by a crash, that problem is simply uploaded again
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(records * RECORD_BYTES);
+            }
+        }
+        this.journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile(), true)));
+    }
+
+    synchronized OptionalInt get(ProblemFingerprint fingerprint) {
+        int slot = findSlot(fingerprint.high, fingerprint.low);
+        return ids[slot] == NO_ID ? OptionalInt.empty() : OptionalInt.of(ids[slot]);
+    }
+
+    synchronized void put(ProblemFingerprint fingerprint, int problemId) throws IOException {
+        insert(fingerprint.high, fingerprint.low, problemId);
+        journal.writeLong(fingerprint.high);
+        journal.writeLong(fingerprint.low);
+        journal.writeInt(problemId);
+        journal.flush();
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        journal.close();
+    }
+
+    private void insert(long high, long low, int id) {
+        if (4 * (size + 1) > 3 * ids.length) {
+            rehash();
+        }
+        int slot = findSlot(high, low);
+        if (ids[slot] == NO_ID) {
+            size++;
+        }
+        highs[slot] = high;
+        lows[slot] = low;
+        ids[slot] = id;
+    }
+
+    private int findSlot(long high, long low) {
+        int mask = ids.length - 1;
+        int slot = (int) (high ^ (high >>> 32)) & mask;
+        while (ids[slot] != NO_ID && (highs[slot] != high || lows[slot] != low)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        int[] oldIds = ids;
+        allocate(2 * oldIds.length);
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != NO_ID) {
+                int slot = findSlot(oldHighs[i], oldLows[i]);
+                highs[slot] = oldHighs[i];
+                lows[slot] = oldLows[i];
+                ids[slot] = oldIds[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        highs = new long[capacity];
+        lows = new long[capacity];
+        ids = new int[capacity];
+        Arrays.fill(ids, NO_ID);
+    }
+}
@@ -36,17 +36,21 @@ public class AtcoderInteractor extends JudgeInteractor {
 
     @Override
     public Problem getProblemByUrl(String url) throws IOException, UnsupportedPageFormat {
-        Document problemPage;
+        String page;
         try {
-            problemPage = Jsoup.parse(Util.executeRequest(
+            page = Util.executeRequest(
                     new URL(url),
                     5,
                     3000,
                     logger
-            ));
+            );
         } catch (HttpRequestAttemptOverflow e) {
             throw new IOException("Can not read problem from atcoder: " + Util.formatThrowable(e));
         }
+        return parse(url, page, p -> parseProblem(Jsoup.parse(p)));
+    }
+
+    static Problem parseProblem(Document problemPage) throws UnsupportedPageFormat {
         Element title = problemPage.getElementsByClass("h2")
                 .stream()
                 .findAny()
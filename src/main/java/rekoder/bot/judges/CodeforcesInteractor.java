@@ -1,30 +1,33 @@
 package rekoder.bot.judges;
 
-import org.json.JSONException;
 import org.jsoup.*;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.json.JSONObject;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import rekoder.primitive.Problem;
+import rekoder.util.Config;
 import rekoder.util.HttpRequestAttemptOverflow;
+import rekoder.util.JsonStreamReader;
 import rekoder.util.UnsupportedPageFormat;
 import rekoder.util.Util;
 
-import static rekoder.util.Util.checkNotNullOrThrowFormat;
-
 public class CodeforcesInteractor extends JudgeInteractor {
     public static final int GET_PROBLEM_BY_URL_ATTEMPTS = 3;
     public static final int GET_PROBLEM_BY_URL_INTERVAL_SECS = 5;
+    public static final Duration API_CACHE_TTL = Duration.ofMinutes(10);
+    public static final String DEFAULT_BASE_URL = "https://codeforces.com";
+
+    private final String baseUrl = Config.getString("rekoder.codeforces.url", DEFAULT_BASE_URL);
 
     public CodeforcesInteractor(Logger logger) {
         super(logger, "Codeforces");
@@ -42,156 +45,157 @@ public class CodeforcesInteractor extends JudgeInteractor {
 
     @Override
     public Problem getProblemByUrl(String url) throws IOException, UnsupportedPageFormat {
-        Document document;
+        String page;
         try {
-            document = Jsoup.parse(Util.executeRequest(
+            page = Util.executeRequest(
                     new URL(url),
                     GET_PROBLEM_BY_URL_ATTEMPTS,
                     GET_PROBLEM_BY_URL_INTERVAL_SECS * 1000,
                     logger
-            ));
+            );
         } catch (HttpRequestAttemptOverflow e) {
             throw new IOException(String.format("Unable to read codeforces problem: %s", Util.formatThrowable(e)));
         }
-        Element statement = document.getElementsByClass("problem-statement")
-                .stream()
-                .findAny()
-                .orElse(null);
-        checkNotNullOrThrowFormat(statement);
-        Element title = statement.getElementsByClass("title")
-                .stream()
-                .findAny()
-                .orElse(null);
-        checkNotNullOrThrowFormat(title);
-        String problemName = title
-                .text()
-                .chars()
-                .dropWhile(c -> c != ' ')
-                .skip(1)
-                .collect(StringBuilder::new,
-                        StringBuilder::appendCodePoint,
-                        StringBuilder::append)
-                .toString();
-        Element problemStatement = statement.getElementsByTag("div")
-                .stream()
-                .limit(12)
-                .skip(11)
-                .findAny()
-                .orElse(null);
-        checkNotNullOrThrowFormat(problemStatement);
-        Element problemInputFormatElement = statement.getElementsByClass("input-specification")
-                .stream()
-                .findAny()
-                .orElse(null);
-        checkNotNullOrThrowFormat(problemInputFormatElement);
-        String inputFormat = problemInputFormatElement.html()
-                .chars()
-                .skip(42)
-                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
-                .toString();
-        Element problemOutputFormat = statement.getElementsByClass("output-specification")
-                .stream()
-                .findAny()
-                .orElse(null);
-        checkNotNullOrThrowFormat(problemOutputFormat);
-        String outputFormat = problemOutputFormat.html()
-                .chars()
-                .skip(43)
-                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
-                .toString();
-        List<String> inputs = document.getElementsByClass("sample-test")
-                .stream()
-                .flatMap(element -> element.getElementsByClass("input").stream())
-                .map(e -> e.getElementsByTag("pre").stream().findAny().orElseThrow().html())
-                .collect(Collectors.toList());
-        List<String> outputs = document.getElementsByClass("sample-test")
-                .stream()
-                .flatMap(element -> element.getElementsByClass("output").stream())
-                .map(e -> e.getElementsByTag("pre").stream().findAny().orElseThrow().html())
-                .collect(Collectors.toList());
-
-        if (inputs.size() != outputs.size()) {
-            throw new UnsupportedPageFormat("Unsupported page format");
-        }
-
-        List<Problem.Test> examples = new ArrayList<>();
-        for (int i = 0; i < inputs.size(); i++) {
-            examples.add(new Problem.Test(inputs.get(i), outputs.get(i)));
-        }
-
-        Element contestNameElement = document.getElementsByTag("th").stream().limit(1).findAny().orElse(null);
-        checkNotNullOrThrowFormat(contestNameElement);
-        contestNameElement = contestNameElement.getElementsByTag("a").stream().findAny().orElse(null);
-        checkNotNullOrThrowFormat(contestNameElement);
-        String contestName = contestNameElement.text();
-
-        logger.log(Level.INFO, "Got problem from codeforces: " + problemName);
-        return new Problem(problemName, problemStatement.html(), inputFormat, outputFormat, examples, contestName, url);
+        Problem problem = parse(url, page, p -> CodeforcesProblemParser.parse(Jsoup.parse(p), url));
+        logger.log(Level.INFO, "Got problem from codeforces: " + problem.name);
+        return problem;
     }
 
     @Override
     public List<String> getProblemUrlsInInterval(LocalDateTime begin, LocalDateTime end, int limit) throws IOException {
-        final Map<Long, LocalDateTime> contestStartTime = new HashMap<>();
-        JSONObject contestsResponse;
+        final Map<Long, LocalDateTime> contestStartTime;
         try {
-            contestsResponse = new JSONObject(Util.executeRequest(
-                    new URL("https://codeforces.com/api/contest.list?gym=false"),
+            contestStartTime = Util.executeRequest(
+                    new URL(baseUrl + "/api/contest.list?gym=false"),
                     GET_PROBLEM_BY_URL_ATTEMPTS,
                     GET_PROBLEM_BY_URL_INTERVAL_SECS * 1000,
-                    logger
-            ));
+                    API_CACHE_TTL,
+                    logger,
+                    (body, charset) -> readContestStartTimes(body)
+            );
         } catch (HttpRequestAttemptOverflow e) {
             throw new IOException(String.format("Unable to read codeforces contests list: %s", Util.formatThrowable(e)));
         }
-        for (Object contestJsonObject : contestsResponse.getJSONArray("result")) {
-            JSONObject contestJson = (JSONObject) contestJsonObject;
-            long startTimeSeconds = contestJson.getLong("startTimeSeconds");
-            String type = contestJson.getString("type");
-            if (!type.equals("CF")) {
-                continue;
-            }
-            LocalDateTime startDate = LocalDateTime.ofEpochSecond(startTimeSeconds, 0, ZoneOffset.UTC);
-            long contestId = contestJson.getLong("id");
-            contestStartTime.put(contestId, startDate);
-        }
 
         logger.log(Level.INFO, String.format("Found %d contests on codeforces", contestStartTime.size()));
-        List<String> problemUrls = new ArrayList<>();
 
-        JSONObject problemsResponse;
+        List<String> problemUrls;
         try {
-            problemsResponse = new JSONObject(Util.executeRequest(
-                    new URL("https://codeforces.com/api/problemset.problems"),
+            problemUrls = Util.executeRequest(
+                    new URL(baseUrl + "/api/problemset.problems"),
                     GET_PROBLEM_BY_URL_ATTEMPTS,
                     GET_PROBLEM_BY_URL_INTERVAL_SECS * 1000,
-                    logger
-            ));
+                    API_CACHE_TTL,
+                    logger,
+                    (body, charset) -> readProblemUrls(body, contestStartTime, begin, end, limit)
+            );
         } catch (HttpRequestAttemptOverflow e) {
             throw new IOException(String.format("Unable to read codeforces problems list: %s", Util.formatThrowable(e)));
         }
 
-        for (Object problemJsonObject : problemsResponse.getJSONObject("result").getJSONArray("problems")) {
-            JSONObject problemJson = (JSONObject) problemJsonObject;
-            try {
-                long problemSourceContestId = problemJson.getLong("contestId");
-                if (!contestStartTime.containsKey(problemSourceContestId)) {
-                    logger.log(Level.INFO, "Can not find source contest '" + problemSourceContestId + "'");
+        logger.log(Level.INFO, String.format("Got %d new problems from Codeforces", problemUrls.size()));
+        return problemUrls;
+    }
+
+    static Map<Long, LocalDateTime> readContestStartTimes(InputStream body) throws IOException {
+        final Map<Long, LocalDateTime> contestStartTime = new HashMap<>();
+        JsonStreamReader json = new JsonStreamReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        json.beginObject();
+        while (json.hasNext()) {
+            if (!json.nextName().equals("result")) {
+                json.skipValue();
+                continue;
+            }
+            json.beginArray();
+            while (json.hasNext()) {
+                Long contestId = null;
+                Long startTimeSeconds = null;
+                String type = null;
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "id":
+                            contestId = json.nextLong();
+                            break;
+                        case "startTimeSeconds":
+                            startTimeSeconds = json.nextLong();
+                            break;
+                        case "type":
+                            type = json.nextString();
+                            break;
+                        default:
+                            json.skipValue();
+                            break;
+                    }
+                }
+                json.endObject();
+                if (contestId == null || startTimeSeconds == null || !"CF".equals(type)) {
                     continue;
                 }
-                LocalDateTime problemCreationDate = contestStartTime.get(problemSourceContestId);
-                if (!(problemCreationDate.isAfter(begin) && problemCreationDate.isBefore(end))) {
+                contestStartTime.put(contestId, LocalDateTime.ofEpochSecond(startTimeSeconds, 0, ZoneOffset.UTC));
+            }
+            json.endArray();
+        }
+        return contestStartTime;
+    }
+
+    List<String> readProblemUrls(InputStream body,
+                                 Map<Long, LocalDateTime> contestStartTime,
+                                 LocalDateTime begin,
+                                 LocalDateTime end,
+                                 int limit) throws IOException {
+        List<String> problemUrls = new ArrayList<>();
+        JsonStreamReader json = new JsonStreamReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        json.beginObject();
+        while (json.hasNext()) {
+            if (!json.nextName().equals("result")) {
+                json.skipValue();
+                continue;
+            }
+            json.beginObject();
+            while (json.hasNext()) {
+                if (!json.nextName().equals("problems")) {
+                    json.skipValue();
                     continue;
                 }
-                String problemIndex = problemJson.getString("index");
-                if (limit != NO_LIMIT && problemUrls.size() == limit) {
-                    break;
+                json.beginArray();
+                while (json.hasNext()) {
+                    if (limit != NO_LIMIT && problemUrls.size() == limit) {
+                        return problemUrls;
+                    }
+                    Long problemSourceContestId = null;
+                    String problemIndex = null;
+                    json.beginObject();
+                    while (json.hasNext()) {
+                        switch (json.nextName()) {
+                            case "contestId":
+                                problemSourceContestId = json.nextLong();
+                                break;
+                            case "index":
+                                problemIndex = json.nextString();
+                                break;
+                            default:
+                                json.skipValue();
+                                break;
+                        }
+                    }
+                    json.endObject();
+                    if (problemSourceContestId == null || problemIndex == null) {
+                        continue;
+                    }
+                    if (!contestStartTime.containsKey(problemSourceContestId)) {
+                        logger.log(Level.INFO, "Can not find source contest '" + problemSourceContestId + "'");
+                        continue;
+                    }
+                    LocalDateTime problemCreationDate = contestStartTime.get(problemSourceContestId);
+                    if (!(problemCreationDate.isAfter(begin) && problemCreationDate.isBefore(end))) {
+                        continue;
+                    }
+                    problemUrls.add(String.format("%s/contest/%d/problem/%s", baseUrl, problemSourceContestId, problemIndex));
                 }
-                problemUrls.add(String.format("https://codeforces.com/contest/%d/problem/%s", problemSourceContestId, problemIndex));
-            } catch (JSONException ignored) {
+                return problemUrls;
             }
         }
-
-        logger.log(Level.INFO, String.format("Got %d new problems from Codeforces", problemUrls.size()));
         return problemUrls;
     }
 }
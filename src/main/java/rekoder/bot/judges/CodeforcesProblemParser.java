@@ -0,0 +1,143 @@
+package rekoder.bot.judges;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.NodeFilter;
+import org.jsoup.select.NodeTraversor;
+import rekoder.primitive.Problem;
+import rekoder.util.UnsupportedPageFormat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static rekoder.util.Util.checkNotNullOrThrowFormat;
+
+class CodeforcesProblemParser implements NodeFilter {
+    private Element contestHeader;
+    private boolean contestHeaderClosed;
+    private String contestName;
+    private boolean statementParsed;
+    private String name;
+    private String statement;
+    private String inputFormat;
+    private String outputFormat;
+    private final List<String> inputs = new ArrayList<>();
+    private final List<String> outputs = new ArrayList<>();
+    private UnsupportedPageFormat error;
+
+    private CodeforcesProblemParser() {
+    }
+
+    static Problem parse(Document document, String url) throws UnsupportedPageFormat {
+        CodeforcesProblemParser parser = new CodeforcesProblemParser();
+        NodeTraversor.filter(parser, document);
+        if (parser.error != null) {
+            throw parser.error;
+        }
+        checkNotNullOrThrowFormat(parser.name);
+        checkNotNullOrThrowFormat(parser.statement);
+        checkNotNullOrThrowFormat(parser.inputFormat);
+        checkNotNullOrThrowFormat(parser.outputFormat);
+        checkNotNullOrThrowFormat(parser.contestName);
+        if (parser.inputs.size() != parser.outputs.size()) {
+            throw new UnsupportedPageFormat("Unsupported page format");
+        }
+        List<Problem.Test> examples = new ArrayList<>();
+        for (int i = 0; i < parser.inputs.size(); i++) {
+            examples.add(new Problem.Test(parser.inputs.get(i), parser.outputs.get(i)));
+        }
+        return new Problem(parser.name, parser.statement, parser.inputFormat, parser.outputFormat, examples, parser.contestName, url);
+    }
+
+    @Override
+    public FilterResult head(Node node, int depth) {
+        if (!(node instanceof Element)) {
+            return FilterResult.CONTINUE;
+        }
+        Element element = (Element) node;
+        if (contestHeader == null && element.tagName().equals("th")) {
+            contestHeader = element;
+        } else if (contestName == null && contestHeader != null && !contestHeaderClosed && element.tagName().equals("a")) {
+            contestName = element.text();
+        } else if (!statementParsed && element.hasClass("problem-statement")) {
+            statementParsed = true;
+            try {
+                parseStatement(element);
+            } catch (UnsupportedPageFormat e) {
+                error = e;
+                return FilterResult.STOP;
+            }
+            return contestName != null ? FilterResult.STOP : FilterResult.SKIP_ENTIRELY;
+        }
+        return statementParsed && contestName != null ? FilterResult.STOP : FilterResult.CONTINUE;
+    }
+
+    @Override
+    public FilterResult tail(Node node, int depth) {
+        if (node == contestHeader) {
+            contestHeaderClosed = true;
+        }
+        return FilterResult.CONTINUE;
+    }
+
+    private void parseStatement(Element problemStatement) throws UnsupportedPageFormat {
+        for (Element section : problemStatement.children()) {
+            if (section.hasClass("header")) {
+                Element title = findChildWithClass(section, "title");
+                checkNotNullOrThrowFormat(title);
+                String titleText = title.text();
+                int space = titleText.indexOf(' ');
+                name = space < 0 ? "" : titleText.substring(space + 1);
+            } else if (section.hasClass("input-specification")) {
+                inputFormat = htmlAfterSectionTitle(section);
+            } else if (section.hasClass("output-specification")) {
+                outputFormat = htmlAfterSectionTitle(section);
+            } else if (section.hasClass("sample-tests")) {
+                for (Element sampleTest : section.children()) {
+                    if (sampleTest.hasClass("sample-test")) {
+                        parseSampleTest(sampleTest);
+                    }
+                }
+            } else if (statement == null && section.tagName().equals("div") && section.className().isEmpty()) {
+                statement = section.html();
+            }
+        }
+    }
+
+    private void parseSampleTest(Element sampleTest) throws UnsupportedPageFormat {
+        for (Element example : sampleTest.children()) {
+            boolean input = example.hasClass("input");
+            if (!input && !example.hasClass("output")) {
+                continue;
+            }
+            Element pre = null;
+            for (Element child : example.children()) {
+                if (child.tagName().equals("pre")) {
+                    pre = child;
+                    break;
+                }
+            }
+            checkNotNullOrThrowFormat(pre);
+            (input ? inputs : outputs).add(pre.html());
+        }
+    }
+
+    private static Element findChildWithClass(Element parent, String className) {
+        for (Element child : parent.children()) {
+            if (child.hasClass(className)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static String htmlAfterSectionTitle(Element section) {
+        String html = section.html();
+        Node first = section.childNodeSize() > 0 ? section.childNode(0) : null;
+        if (first instanceof Element && ((Element) first).hasClass("section-title")) {
+            return html.substring(first.outerHtml().length()).trim();
+        }
+        return html;
+    }
+}
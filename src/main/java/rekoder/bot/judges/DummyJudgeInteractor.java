@@ -11,6 +11,12 @@ public class DummyJudgeInteractor extends JudgeInteractor {
         super(logger, "Dummy");
     }
 
+    // its placeholder problems must never reach the backend on their own
+    @Override
+    public boolean isPolled() {
+        return false;
+    }
+
     @Override
     public List<Problem> getAllProblems() {
         throw new UnsupportedOperationException();
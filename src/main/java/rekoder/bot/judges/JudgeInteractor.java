@@ -1,31 +1,67 @@
 package rekoder.bot.judges;
 
+import rekoder.ResultOrError;
+import rekoder.jfr.ProblemParseEvent;
 import rekoder.primitive.Problem;
+import rekoder.util.Config;
+import rekoder.util.Metrics;
 import rekoder.util.UnsupportedPageFormat;
 import rekoder.util.Util;
+import rekoder.util.VirtualThreadExecutor;
 
 import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public abstract class JudgeInteractor {
     public static int NO_LIMIT = -1;
+    public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 4;
 
     protected final Logger logger;
     private final String name;
+    private final int maxRequestsPerHost;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final Metrics.Histogram parseLatency;
+    private volatile ExecutorService executor;
 
     public JudgeInteractor(Logger logger, String name) {
         this.logger = logger;
         this.name = name;
+        this.maxRequestsPerHost = Math.max(1, Config.getInt("rekoder.judge.maxRequestsPerHost", DEFAULT_MAX_REQUESTS_PER_HOST));
+        this.parseLatency = Metrics.histogram("judge.parse." + name);
     }
 
     public String getName() {
         return name;
     }
 
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    // whether the scheduler may poll the judge, the others are only updated on request
+    public boolean isPolled() {
+        return true;
+    }
+
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
     public List<Problem> getAllProblems() throws IOException {
         return getProblemsInInterval(LocalDateTime.MIN, LocalDateTime.MAX, NO_LIMIT);
     }
@@ -36,13 +72,148 @@ public abstract class JudgeInteractor {
 
     public List<Problem> getProblemsInInterval(LocalDateTime begin, LocalDateTime end, int limit) throws IOException {
         final List<Problem> problems = new ArrayList<>();
-        for (String url : getProblemUrlsInInterval(begin, end, limit)) {
-            try {
-                problems.add(getProblemByUrl(url));
-            } catch (UnsupportedPageFormat e) {
-                logger.log(Level.INFO, String.format("Problem page format is not supported: %s", Util.formatThrowable(e)));
+        for (ResultOrError<Problem> result : getProblemsByUrls(getProblemUrlsInInterval(begin, end, limit))) {
+            if (result.isError) {
+                logger.log(result.getErrorLevel(), result.getErrorMessage());
+            } else {
+                problems.add(result.getResult());
             }
         }
         return problems;
     }
+
+    public List<ResultOrError<Problem>> getProblemsByUrls(List<String> urls) throws IOException {
+        AtomicReferenceArray<ResultOrError<Problem>> results = new AtomicReferenceArray<>(urls.size());
+        getProblemsByUrls(urls, (index, url, result) -> results.set(index, result));
+        List<ResultOrError<Problem>> orderedResults = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            orderedResults.add(results.get(i));
+        }
+        return orderedResults;
+    }
+
+    public void getProblemsByUrls(List<String> urls, ProblemConsumer consumer) throws IOException {
+        ExecutorService sharedExecutor = this.executor;
+        ExecutorService executor = sharedExecutor != null ? sharedExecutor : newExecutorFor(urls);
+        List<Future<?>> futures = new ArrayList<>(urls.size());
+        List<AtomicBoolean> started = new ArrayList<>(urls.size());
+        List<Semaphore> taskPermits = new ArrayList<>(urls.size());
+        try {
+            for (int i = 0; i < urls.size(); i++) {
+                final int index = i;
+                final String url = urls.get(i);
+                Semaphore permits = hostPermits.computeIfAbsent(getHost(url), host -> new Semaphore(maxRequestsPerHost));
+                AtomicBoolean taskStarted = new AtomicBoolean();
+                permits.acquire();
+                try {
+                    futures.add(executor.submit(() -> {
+                        if (!taskStarted.compareAndSet(false, true)) {
+                            return null;
+                        }
+                        ResultOrError<Problem> result;
+                        try {
+                            result = getProblemResult(url);
+                        } finally {
+                            permits.release();
+                        }
+                        consumer.accept(index, url, result);
+                        return null;
+                    }));
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+                started.add(taskStarted);
+                taskPermits.add(permits);
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            abort(futures, started, taskPermits);
+            Thread.currentThread().interrupt();
+            throw new IOException(String.format("Fetching problems from %s was interrupted", name));
+        } catch (ExecutionException e) {
+            abort(futures, started, taskPermits);
+            throw new IOException(String.format("Problem consumer failed: %s", Util.formatThrowable(e.getCause())));
+        } finally {
+            if (sharedExecutor == null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    // the host permits outlive the update, so the ones taken for tasks that never start are given back here
+    private static void abort(List<Future<?>> futures, List<AtomicBoolean> started, List<Semaphore> permits) {
+        futures.forEach(future -> future.cancel(true));
+        for (int i = 0; i < started.size(); i++) {
+            if (started.get(i).compareAndSet(false, true)) {
+                permits.get(i).release();
+            }
+        }
+    }
+
+    private ExecutorService newExecutorFor(List<String> urls) {
+        if (VirtualThreadExecutor.isEnabled()) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        Map<String, Long> urlsPerHost = urls.stream()
+                .collect(Collectors.groupingBy(JudgeInteractor::getHost, Collectors.counting()));
+        int threads = urlsPerHost.values()
+                .stream()
+                .mapToInt(count -> (int) Math.min(count, maxRequestsPerHost))
+                .sum();
+        return Executors.newFixedThreadPool(Math.max(1, threads));
+    }
+
+    protected Problem parse(String url, String page, PageParser parser) throws UnsupportedPageFormat {
+        ProblemParseEvent event = new ProblemParseEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            Problem problem = parser.parse(page);
+            event.outcome = "ok";
+            return problem;
+        } catch (UnsupportedPageFormat | RuntimeException e) {
+            event.outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            parseLatency.recordSince(start);
+            if (event.shouldCommit()) {
+                event.judge = name;
+                event.url = url;
+                event.characters = page.length();
+                event.commit();
+            }
+        }
+    }
+
+    private ResultOrError<Problem> getProblemResult(String url) {
+        try {
+            return new ResultOrError<>(getProblemByUrl(url));
+        } catch (UnsupportedPageFormat e) {
+            return new ResultOrError<>(Level.INFO,
+                    String.format("Problem page format is not supported: %s, %s", url, Util.formatThrowable(e)));
+        } catch (IOException | RuntimeException e) {
+            return new ResultOrError<>(Level.WARNING,
+                    String.format("Failed to get problem %s: %s", url, Util.formatThrowable(e)));
+        }
+    }
+
+    private static String getHost(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host;
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+
+    protected interface PageParser {
+        Problem parse(String page) throws UnsupportedPageFormat;
+    }
+
+    public interface ProblemConsumer {
+        void accept(int index, String url, ResultOrError<Problem> result) throws InterruptedException;
+    }
 }
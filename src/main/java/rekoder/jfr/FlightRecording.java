@@ -0,0 +1,69 @@
+package rekoder.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+public class FlightRecording {
+    private static final List<Class<? extends Event>> EVENTS = List.of(
+            UpdateTaskEvent.class, JudgeRequestEvent.class, ProblemParseEvent.class, ApiCallEvent.class);
+
+    private Recording recording;
+
+    public FlightRecording() {
+        for (Class<? extends Event> event : EVENTS) {
+            FlightRecorder.register(event);
+        }
+    }
+
+    public synchronized String start(String settings) throws IOException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return "Recording is already running since " + recording.getStartTime();
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (ParseException e) {
+            throw new IOException(String.format("Malformed JFR settings '%s': %s", settings, e.getMessage()));
+        }
+        recording = new Recording(configuration);
+        recording.setName("rekoder");
+        recording.setToDisk(true);
+        for (Class<? extends Event> event : EVENTS) {
+            recording.enable(event).withoutThreshold();
+        }
+        recording.start();
+        return String.format("Recording started with '%s' settings", settings);
+    }
+
+    public synchronized String dump(Path file) throws IOException {
+        if (recording == null) {
+            return "No recording, start one first";
+        }
+        recording.dump(file);
+        return "Recording dumped to " + file.toAbsolutePath();
+    }
+
+    public synchronized String stop() {
+        if (recording == null) {
+            return "No recording, start one first";
+        }
+        recording.close();
+        recording = null;
+        return "Recording stopped";
+    }
+
+    public synchronized String getStatus() {
+        if (recording == null) {
+            return "No recording";
+        }
+        return String.format("Recording %s since %s, %d bytes", recording.getState(), recording.getStartTime(), recording.getSize());
+    }
+}
@@ -0,0 +1,28 @@
+package rekoder.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("rekoder.JudgeRequest")
+@Label("Judge Request")
+@Category({"Rekoder", "HTTP"})
+public class JudgeRequestEvent extends Event {
+    @Label("Host")
+    public String host;
+
+    @Label("URL")
+    public String url;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,23 @@
+package rekoder.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("rekoder.ProblemParse")
+@Label("Problem Parse")
+@Category({"Rekoder", "Parsing"})
+public class ProblemParseEvent extends Event {
+    @Label("Judge")
+    public String judge;
+
+    @Label("URL")
+    public String url;
+
+    @Label("Page Characters")
+    public long characters;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,37 @@
+package rekoder.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("rekoder.UpdateTask")
+@Label("Update Task")
+@Category("Rekoder")
+@StackTrace(false)
+public class UpdateTaskEvent extends Event {
+    @Label("Judge")
+    public String judge;
+
+    @Label("Problem URLs")
+    public int problemUrls;
+
+    @Label("Fetched")
+    public int fetched;
+
+    @Label("Uploaded")
+    public int uploaded;
+
+    @Label("Reused")
+    public int reused;
+
+    @Label("Skipped")
+    public int skipped;
+
+    @Label("Failed")
+    public int failed;
+
+    @Label("Outcome")
+    public String outcome;
+}
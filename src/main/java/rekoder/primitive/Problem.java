@@ -1,6 +1,7 @@
 package rekoder.primitive;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 public class Problem {
@@ -11,6 +12,7 @@ public class Problem {
     public final List<Test> examples;
     public final String contest;
     public final String url;
+    private final ProblemFingerprint fingerprint;
 
     public Problem(String name, String statement, String inputFormat, String outputFormat, List<Test> examples, String contest, String url) {
         this.name = name;
@@ -20,25 +22,56 @@ public class Problem {
         this.examples = examples;
         this.contest = contest;
         this.url = url;
+        this.fingerprint = ProblemFingerprint.digest(digest -> {
+            ProblemFingerprint.update(digest, name);
+            ProblemFingerprint.update(digest, statement);
+            ProblemFingerprint.update(digest, inputFormat);
+            ProblemFingerprint.update(digest, outputFormat);
+            ProblemFingerprint.update(digest, examples.size());
+            for (Test test : examples) {
+                ProblemFingerprint.update(digest, test.fingerprint);
+            }
+        });
+    }
+
+    public ProblemFingerprint getFingerprint() {
+        return fingerprint;
     }
 
     public static class Test {
         public final String input;
         public final String output;
+        private final long fingerprint;
 
         public Test(String input, String output) {
             this.input = input;
             this.output = output;
+            this.fingerprint = ProblemFingerprint.digest(digest -> {
+                ProblemFingerprint.update(digest, input);
+                ProblemFingerprint.update(digest, output);
+            }).high;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(fingerprint);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Test)) {
+                return false;
+            }
+            Test other = (Test) o;
+            return this.fingerprint == other.fingerprint
+                    && Objects.equals(this.input, other.input)
+                    && Objects.equals(this.output, other.output);
         }
     }
 
     @Override
     public int hashCode() {
-        return this.name.hashCode()
-                ^ this.statement.hashCode()
-                ^ this.inputFormat.hashCode()
-                ^ this.outputFormat.hashCode()
-                ^ this.examples.hashCode(); // TODO: should add contest and url to hashCode and equals?
+        return fingerprint.hashCode(); // TODO: should add contest and url to hashCode and equals?
     }
 
     @Override
@@ -47,10 +80,11 @@ public class Problem {
             return false;
         }
         Problem other = (Problem) o;
-        return this.name.equals(other.name)
-                && this.statement.equals(other.statement)
-                && this.inputFormat.equals(other.inputFormat)
-                && this.outputFormat.equals(other.outputFormat)
+        return this.fingerprint.equals(other.fingerprint)
+                && Objects.equals(this.name, other.name)
+                && Objects.equals(this.statement, other.statement)
+                && Objects.equals(this.inputFormat, other.inputFormat)
+                && Objects.equals(this.outputFormat, other.outputFormat)
                 && this.examples.equals(other.examples);
     }
 
@@ -0,0 +1,78 @@
+package rekoder.primitive;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Consumer;
+
+public final class ProblemFingerprint {
+    public final long high;
+    public final long low;
+
+    public ProblemFingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    // key of an uploaded problem, from the content fingerprint cached in the problem and the url
+    public static ProblemFingerprint of(Problem problem) {
+        return digest(digest -> {
+            update(digest, problem.getFingerprint().high);
+            update(digest, problem.getFingerprint().low);
+            update(digest, problem.url);
+        });
+    }
+
+    static ProblemFingerprint digest(Consumer<MessageDigest> fields) {
+        MessageDigest digest = newDigest();
+        fields.accept(digest);
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new ProblemFingerprint(hash.getLong(), hash.getLong());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            update(digest, -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        update(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    static void update(MessageDigest digest, int value) {
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value).array());
+    }
+
+    static void update(MessageDigest digest, long value) {
+        digest.update(ByteBuffer.allocate(Long.BYTES).putLong(value).array());
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof ProblemFingerprint)) {
+            return false;
+        }
+        ProblemFingerprint other = (ProblemFingerprint) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
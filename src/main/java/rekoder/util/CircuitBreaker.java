@@ -0,0 +1,84 @@
+package rekoder.util;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CircuitBreaker {
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final int DEFAULT_OPEN_SECS = 30;
+
+    private static final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+    }
+
+    public static CircuitBreaker forName(String name) {
+        return breakers.computeIfAbsent(name, n -> new CircuitBreaker(
+                n,
+                Config.getInt("rekoder.circuit.failureThreshold", DEFAULT_FAILURE_THRESHOLD),
+                Duration.ofSeconds(Config.getInt("rekoder.circuit.openSecs", DEFAULT_OPEN_SECS))));
+    }
+
+    public static Map<String, CircuitBreaker> all() {
+        return new TreeMap<>(breakers);
+    }
+
+    public synchronized void acquire() throws CircuitBreakerOpen {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+            throw new CircuitBreakerOpen(String.format("Circuit breaker '%s' is open", name));
+        }
+        if (state == State.HALF_OPEN) {
+            trialInFlight = true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+        }
+    }
+
+    // ends a request that tells nothing about the host, e.g. one never sent, a half-open circuit lets the next trial through
+    public synchronized void release() {
+        trialInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %s, consecutive failures: %d", name, state, consecutiveFailures);
+    }
+}
@@ -0,0 +1,9 @@
+package rekoder.util;
+
+import java.io.IOException;
+
+public class CircuitBreakerOpen extends IOException {
+    public CircuitBreakerOpen(String message) {
+        super(message);
+    }
+}
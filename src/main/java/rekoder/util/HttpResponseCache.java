@@ -0,0 +1,372 @@
+package rekoder.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+public class HttpResponseCache {
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Body>> inFlight = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    public HttpResponseCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        List<Entry> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> metaFiles = Files.newDirectoryStream(directory, "*" + META_SUFFIX)) {
+            for (Path metaFile : metaFiles) {
+                Entry entry = readEntry(metaFile);
+                if (entry != null) {
+                    loaded.add(entry);
+                }
+            }
+        }
+        loaded.sort(Comparator.comparingLong(entry -> entry.lastAccessMillis));
+        synchronized (this) {
+            for (Entry entry : loaded) {
+                entries.put(entry.key, entry);
+                totalBytes += entry.size;
+            }
+            evict(null);
+        }
+    }
+
+    public String get(URL url, Duration ttl) throws IOException {
+        return read(url, ttl, (body, charset) -> new String(body.readAllBytes(), charset));
+    }
+
+    public <T> T read(URL url, Duration ttl, Util.ResponseReader<T> reader) throws IOException {
+        while (true) {
+            Body cached = fetch(url, ttl);
+            InputStream body = cached.bytes != null ? new ByteArrayInputStream(cached.bytes) : open(cached.key);
+            if (body == null) {
+                continue; // evicted between the fetch and the read, so it is fetched again
+            }
+            try (body) {
+                return reader.read(body, cached.charset);
+            }
+        }
+    }
+
+    // an entry still within its TTL, read without any request, empty when there is none
+    public <T> Optional<T> readIfFresh(URL url, Duration ttl, Util.ResponseReader<T> reader) throws IOException {
+        String key = keyOf(url);
+        Charset charset;
+        InputStream body;
+        synchronized (this) {
+            Entry cached = entries.get(key);
+            if (cached == null || System.currentTimeMillis() - cached.storedAtMillis >= ttl.toMillis()) {
+                return Optional.empty();
+            }
+            charset = cached.charset;
+            body = open(key);
+        }
+        if (body == null) {
+            return Optional.empty();
+        }
+        try (body) {
+            return Optional.of(reader.read(body, charset));
+        }
+    }
+
+    private Body fetch(URL url, Duration ttl) throws IOException {
+        String key = keyOf(url);
+        CompletableFuture<Body> fetch = new CompletableFuture<>();
+        CompletableFuture<Body> running = inFlight.putIfAbsent(key, fetch);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            fetch.complete(fetchOrRevalidate(key, url, ttl));
+        } catch (IOException | RuntimeException e) {
+            fetch.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, fetch);
+        }
+        return await(fetch);
+    }
+
+    private Body fetchOrRevalidate(String key, URL url, Duration ttl) throws IOException {
+        Entry cached;
+        synchronized (this) {
+            cached = entries.get(key);
+        }
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.storedAtMillis < ttl.toMillis()) {
+            return new Body(key, cached.charset);
+        }
+
+        Map<String, String> validators = new HashMap<>();
+        if (cached != null && cached.etag != null) {
+            validators.put("If-None-Match", cached.etag);
+        }
+        if (cached != null && cached.lastModified != null) {
+            validators.put("If-Modified-Since", cached.lastModified);
+        }
+        try (JudgeHttpTransport.Response response = Util.send(url, validators)) {
+            if (response.getStatusCode() != 304 || cached == null) {
+                return download(key, url, ttl, now, response);
+            }
+            Entry revalidated = cached.withStoredAt(now);
+            boolean stillCached;
+            synchronized (this) {
+                stillCached = entries.containsKey(key) && Files.exists(bodyFile(key));
+                if (stillCached) {
+                    entries.put(key, revalidated);
+                } else {
+                    remove(key);
+                }
+            }
+            if (stillCached) {
+                writeMeta(revalidated);
+                return new Body(key, revalidated.charset);
+            }
+        }
+        // evicted while it was revalidated, and the 304 has no body to store in its place
+        try (JudgeHttpTransport.Response response = Util.send(url, Map.of())) {
+            return download(key, url, ttl, now, response);
+        }
+    }
+
+    private Body download(String key, URL url, Duration ttl, long now, JudgeHttpTransport.Response response) throws IOException {
+        String etag = response.getHeader("ETag");
+        String lastModified = response.getHeader("Last-Modified");
+        Charset charset = response.getCharset();
+        if (etag == null && lastModified == null && ttl.isZero()) {
+            return new Body(response.getBody().readAllBytes(), charset);
+        }
+        return store(new Entry(key, url.toString(), etag, lastModified, charset, now, now, 0), response.getBody());
+    }
+
+    private Body store(Entry entry, InputStream body) throws IOException {
+        Path temp = Files.createTempFile(directory, entry.key, ".tmp");
+        try {
+            long size = Files.copy(body, temp, StandardCopyOption.REPLACE_EXISTING);
+            if (size > maxBytes) {
+                synchronized (this) {
+                    remove(entry.key);
+                }
+                return new Body(Files.readAllBytes(temp), entry.charset);
+            }
+            Files.move(temp, bodyFile(entry.key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Entry stored = entry.withSize(size);
+            writeMeta(stored);
+            synchronized (this) {
+                Entry previous = entries.put(stored.key, stored);
+                totalBytes += stored.size - (previous == null ? 0 : previous.size);
+                evict(stored.key);
+            }
+            return new Body(entry.key, entry.charset);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // opened under the lock so evict() cannot delete the file in between, an opened file stays readable after that
+    private synchronized InputStream open(String key) throws IOException {
+        if (!entries.containsKey(key)) {
+            return null;
+        }
+        Path file = bodyFile(key);
+        try {
+            InputStream opened = Files.newInputStream(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return opened;
+        } catch (NoSuchFileException e) {
+            remove(key);
+            return null;
+        }
+    }
+
+    private synchronized void evict(String keep) {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            if (entry.key.equals(keep)) {
+                continue;
+            }
+            eldest.remove();
+            totalBytes -= entry.size;
+            deleteFiles(entry.key);
+        }
+    }
+
+    private synchronized void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.size;
+            deleteFiles(key);
+        }
+    }
+
+    private void deleteFiles(String key) {
+        try {
+            Files.deleteIfExists(bodyFile(key));
+            Files.deleteIfExists(metaFile(key));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void writeMeta(Entry entry) throws IOException {
+        Properties meta = new Properties();
+        meta.setProperty("url", entry.url);
+        meta.setProperty("storedAt", Long.toString(entry.storedAtMillis));
+        meta.setProperty("size", Long.toString(entry.size));
+        meta.setProperty("charset", entry.charset.name());
+        if (entry.etag != null) {
+            meta.setProperty("etag", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            meta.setProperty("lastModified", entry.lastModified);
+        }
+        Path temp = Files.createTempFile(directory, entry.key, ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                meta.store(writer, null);
+            }
+            Files.move(temp, metaFile(entry.key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Entry readEntry(Path metaFile) {
+        String fileName = metaFile.getFileName().toString();
+        String key = fileName.substring(0, fileName.length() - META_SUFFIX.length());
+        Path body = bodyFile(key);
+        try (Reader reader = Files.newBufferedReader(metaFile, StandardCharsets.UTF_8)) {
+            Properties meta = new Properties();
+            meta.load(reader);
+            if (!Files.exists(body)) {
+                Files.deleteIfExists(metaFile);
+                return null;
+            }
+            return new Entry(
+                    key,
+                    meta.getProperty("url"),
+                    meta.getProperty("etag"),
+                    meta.getProperty("lastModified"),
+                    Charset.forName(meta.getProperty("charset", StandardCharsets.UTF_8.name())),
+                    Long.parseLong(meta.getProperty("storedAt")),
+                    Files.getLastModifiedTime(body).toMillis(),
+                    Files.size(body));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private Path bodyFile(String key) {
+        return directory.resolve(key + BODY_SUFFIX);
+    }
+
+    private Path metaFile(String key) {
+        return directory.resolve(key + META_SUFFIX);
+    }
+
+    private static Body await(CompletableFuture<Body> fetch) throws IOException {
+        try {
+            return fetch.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a shared request");
+        }
+    }
+
+    private static String keyOf(URL url) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(url.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                key.append(String.format("%02x", hash[i]));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class Entry {
+        private final String key;
+        private final String url;
+        private final String etag;
+        private final String lastModified;
+        private final Charset charset;
+        private final long storedAtMillis;
+        private final long lastAccessMillis;
+        private final long size;
+
+        private Entry(String key, String url, String etag, String lastModified, Charset charset, long storedAtMillis, long lastAccessMillis, long size) {
+            this.key = key;
+            this.url = url;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.charset = charset;
+            this.storedAtMillis = storedAtMillis;
+            this.lastAccessMillis = lastAccessMillis;
+            this.size = size;
+        }
+
+        private Entry withStoredAt(long storedAtMillis) {
+            return new Entry(key, url, etag, lastModified, charset, storedAtMillis, lastAccessMillis, size);
+        }
+
+        private Entry withSize(long size) {
+            return new Entry(key, url, etag, lastModified, charset, storedAtMillis, lastAccessMillis, size);
+        }
+    }
+
+    private static class Body {
+        private final String key;
+        private final byte[] bytes;
+        private final Charset charset;
+
+        private Body(String key, Charset charset) {
+            this.key = key;
+            this.bytes = null;
+            this.charset = charset;
+        }
+
+        private Body(byte[] bytes, Charset charset) {
+            this.key = null;
+            this.bytes = bytes;
+            this.charset = charset;
+        }
+    }
+}
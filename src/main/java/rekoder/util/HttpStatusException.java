@@ -0,0 +1,28 @@
+package rekoder.util;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+public class HttpStatusException extends IOException {
+    private final int statusCode;
+    private final Duration retryAfter;
+
+    public HttpStatusException(String message, int statusCode, Duration retryAfter) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Optional<Duration> getRetryAfter() {
+        return Optional.ofNullable(retryAfter);
+    }
+
+    public boolean isRetryable() {
+        return statusCode == 408 || statusCode == 429 || statusCode / 100 == 5;
+    }
+}
@@ -0,0 +1,343 @@
+package rekoder.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class JsonStreamReader implements Closeable {
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private enum Scope {
+        DOCUMENT, EMPTY_OBJECT, OBJECT, NAME, EMPTY_ARRAY, ARRAY
+    }
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private final Deque<Scope> scopes = new ArrayDeque<>();
+    private int position;
+    private int limit;
+    private Token peeked;
+
+    public JsonStreamReader(Reader reader) {
+        this.reader = reader;
+        scopes.push(Scope.DOCUMENT);
+    }
+
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        Scope scope = scopes.peek();
+        int c = nextNonWhitespace();
+        switch (scope) {
+            case EMPTY_OBJECT:
+            case OBJECT:
+                if (c == '}') {
+                    return peeked = Token.END_OBJECT;
+                }
+                if (scope == Scope.OBJECT) {
+                    expect(c, ',');
+                    c = nextNonWhitespace();
+                }
+                expect(c, '"');
+                position--;
+                return peeked = Token.NAME;
+            case NAME:
+                expect(c, ':');
+                c = nextNonWhitespace();
+                break;
+            case EMPTY_ARRAY:
+            case ARRAY:
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                if (scope == Scope.ARRAY) {
+                    expect(c, ',');
+                    c = nextNonWhitespace();
+                }
+                break;
+            case DOCUMENT:
+                if (c == -1) {
+                    return peeked = Token.END_DOCUMENT;
+                }
+                break;
+        }
+        position--;
+        switch (c) {
+            case '{':
+                return peeked = Token.BEGIN_OBJECT;
+            case '[':
+                return peeked = Token.BEGIN_ARRAY;
+            case '"':
+                return peeked = Token.STRING;
+            case 't':
+            case 'f':
+                return peeked = Token.BOOLEAN;
+            case 'n':
+                return peeked = Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return peeked = Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    public void beginObject() throws IOException {
+        consume(Token.BEGIN_OBJECT);
+        position++;
+        scopes.push(Scope.EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        consume(Token.END_OBJECT);
+        scopes.pop();
+        valueRead();
+    }
+
+    public void beginArray() throws IOException {
+        consume(Token.BEGIN_ARRAY);
+        position++;
+        scopes.push(Scope.EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        consume(Token.END_ARRAY);
+        scopes.pop();
+        valueRead();
+    }
+
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException {
+        consume(Token.NAME);
+        String name = readString();
+        scopes.pop();
+        scopes.push(Scope.NAME);
+        return name;
+    }
+
+    public String nextString() throws IOException {
+        Token token = peek();
+        String value;
+        if (token == Token.STRING) {
+            peeked = null;
+            value = readString();
+        } else if (token == Token.NUMBER || token == Token.BOOLEAN) {
+            peeked = null;
+            value = readLiteral();
+        } else {
+            throw syntaxError("Expected a string but was " + token);
+        }
+        valueRead();
+        return value;
+    }
+
+    public long nextLong() throws IOException {
+        Token token = peek();
+        if (token != Token.NUMBER && token != Token.STRING) {
+            throw syntaxError("Expected a number but was " + token);
+        }
+        String value = nextString();
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Expected a long but was '" + value + "'");
+        }
+    }
+
+    public boolean nextBoolean() throws IOException {
+        consume(Token.BOOLEAN);
+        String value = readLiteral();
+        valueRead();
+        if (value.equals("true")) {
+            return true;
+        }
+        if (value.equals("false")) {
+            return false;
+        }
+        throw syntaxError("Expected a boolean but was '" + value + "'");
+    }
+
+    public void nextNull() throws IOException {
+        consume(Token.NULL);
+        String value = readLiteral();
+        if (!value.equals("null")) {
+            throw syntaxError("Expected null but was '" + value + "'");
+        }
+        valueRead();
+    }
+
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    depth--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    depth--;
+                    break;
+                case NAME:
+                    nextName();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                case BOOLEAN:
+                    nextBoolean();
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Unexpected end of document");
+                default:
+                    nextString();
+                    break;
+            }
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void consume(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("Expected " + expected + " but was " + token);
+        }
+        peeked = null;
+    }
+
+    private void valueRead() {
+        Scope scope = scopes.pop();
+        switch (scope) {
+            case EMPTY_ARRAY:
+                scopes.push(Scope.ARRAY);
+                break;
+            case NAME:
+                scopes.push(Scope.OBJECT);
+                break;
+            default:
+                scopes.push(scope);
+                break;
+        }
+    }
+
+    private String readString() throws IOException {
+        position++;
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            int c = nextChar();
+            if (c == -1) {
+                throw syntaxError("Unterminated string");
+            }
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append((char) c);
+                continue;
+            }
+            c = nextChar();
+            switch (c) {
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'u':
+                    int codeUnit = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(nextChar(), 16);
+                        if (digit < 0) {
+                            throw syntaxError("Malformed unicode escape");
+                        }
+                        codeUnit = codeUnit * 16 + digit;
+                    }
+                    value.append((char) codeUnit);
+                    break;
+                case -1:
+                    throw syntaxError("Unterminated escape sequence");
+                default:
+                    value.append((char) c);
+                    break;
+            }
+        }
+    }
+
+    private String readLiteral() throws IOException {
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            if (position == limit && !fill()) {
+                return value.toString();
+            }
+            char c = buffer[position];
+            if (c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace(c)) {
+                return value.toString();
+            }
+            value.append(c);
+            position++;
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = nextChar();
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int nextChar() throws IOException {
+        if (position == limit && !fill()) {
+            position++;
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(0, read);
+        return read > 0;
+    }
+
+    private void expect(int c, char expected) throws IOException {
+        if (c != expected) {
+            throw syntaxError(String.format("Expected '%c' but was '%s'", expected, c == -1 ? "end of document" : (char) c));
+        }
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
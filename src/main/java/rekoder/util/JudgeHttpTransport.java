@@ -0,0 +1,236 @@
+package rekoder.util;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+// GET requests to judges over java.net.http, with one client and so one connection pool per host
+public class JudgeHttpTransport implements Closeable {
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 5000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 30000;
+
+    private final Duration connectTimeout;
+    private final Duration readTimeout;
+    private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread thread = new Thread(r, "rjb-http-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean closed;
+
+    public JudgeHttpTransport() {
+        this(Duration.ofMillis(Config.getInt("rekoder.http.connectTimeoutMillis", DEFAULT_CONNECT_TIMEOUT_MILLIS)),
+                Duration.ofMillis(Config.getInt("rekoder.http.readTimeoutMillis", DEFAULT_READ_TIMEOUT_MILLIS)));
+    }
+
+    public JudgeHttpTransport(Duration connectTimeout, Duration readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    // the body of a 2xx or 304 response, any other status is thrown as HttpStatusException.
+    // The read timeout applies to the headers and then once more to reading the whole body
+    public Response get(URL url, Map<String, String> headers) throws IOException {
+        if (closed) {
+            throw new IOException("Judge HTTP transport is closed");
+        }
+        HttpRequest.Builder request;
+        try {
+            request = HttpRequest.newBuilder(url.toURI())
+                    .GET()
+                    .timeout(readTimeout)
+                    .header("Accept-Encoding", "gzip, deflate");
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            throw new IOException("Malformed judge URL: " + url, e);
+        }
+        headers.forEach(request::header);
+        HttpResponse<InputStream> response;
+        try {
+            response = clientFor(url).send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while requesting " + url);
+        }
+        int status = response.statusCode();
+        if (status / 100 != 2 && status != 304) {
+            response.body().close();
+            throw new HttpStatusException(String.format("HTTP request error, code %d: %s", status, url), status,
+                    Util.parseRetryAfter(response.headers().firstValue("Retry-After").orElse(null)));
+        }
+        DeadlineInputStream body = new DeadlineInputStream(response.body(), url);
+        body.deadline = watchdog.schedule(body::expire, readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        try {
+            return new Response(response, body);
+        } catch (IOException e) {
+            body.close();
+            throw e;
+        }
+    }
+
+    // closes the per-host clients, requests made afterwards fail
+    @Override
+    public void close() {
+        closed = true;
+        clients.values().forEach(HttpClient::close);
+        clients.clear();
+        watchdog.shutdownNow();
+    }
+
+    private HttpClient clientFor(URL url) {
+        return clients.computeIfAbsent(url.getProtocol() + "://" + url.getAuthority(), origin -> HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build());
+    }
+
+    public static class Response implements Closeable {
+        private final HttpResponse<InputStream> response;
+        private final InputStream body;
+
+        private Response(HttpResponse<InputStream> response, InputStream body) throws IOException {
+            this.response = response;
+            this.body = response.statusCode() == 304
+                    ? body
+                    : decode(body, response.headers().firstValue("Content-Encoding").orElse(null));
+        }
+
+        public int getStatusCode() {
+            return response.statusCode();
+        }
+
+        public String getHeader(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        // decompressed while it is read
+        public InputStream getBody() {
+            return body;
+        }
+
+        // from the Content-Type parameter, UTF-8 when it is missing or unknown
+        public Charset getCharset() {
+            return charsetOf(getHeader("Content-Type"));
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+
+        private static InputStream decode(InputStream body, String encoding) throws IOException {
+            if (encoding == null) {
+                return body;
+            }
+            switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+                case "gzip":
+                case "x-gzip":
+                    return new GZIPInputStream(body);
+                case "deflate":
+                    return new InflaterInputStream(body);
+                default:
+                    return body;
+            }
+        }
+    }
+
+    // closing the response stream wakes a blocked read, which then fails instead of ending the body early
+    private static class DeadlineInputStream extends FilterInputStream {
+        private final URL url;
+        private volatile ScheduledFuture<?> deadline;
+        private volatile boolean expired;
+
+        private DeadlineInputStream(InputStream in, URL url) {
+            super(in);
+            this.url = url;
+        }
+
+        private void expire() {
+            expired = true;
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void checkDeadline() throws HttpTimeoutException {
+            if (expired) {
+                throw new HttpTimeoutException("Body read timed out: " + url);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkDeadline();
+            int b;
+            try {
+                b = in.read();
+            } catch (IOException e) {
+                checkDeadline();
+                throw e;
+            }
+            checkDeadline();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkDeadline();
+            int n;
+            try {
+                n = in.read(b, off, len);
+            } catch (IOException e) {
+                checkDeadline();
+                throw e;
+            }
+            checkDeadline();
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            ScheduledFuture<?> deadline = this.deadline;
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            in.close();
+        }
+    }
+
+    static Charset charsetOf(String contentType) {
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                String[] nameAndValue = parameter.trim().split("=", 2);
+                if (nameAndValue.length == 2 && nameAndValue[0].trim().equalsIgnoreCase("charset")) {
+                    try {
+                        return Charset.forName(nameAndValue[1].trim().replace("\"", ""));
+                    } catch (IllegalCharsetNameException | UnsupportedCharsetException ignored) {
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
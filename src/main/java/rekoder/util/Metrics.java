@@ -0,0 +1,209 @@
+package rekoder.util;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+public class Metrics {
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> register("Counter", n, new Counter()));
+    }
+
+    public static Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> register("Histogram", n, new Histogram()));
+    }
+
+    public static void gauge(String name, LongSupplier value) {
+        gauges.computeIfAbsent(name, n -> register("Gauge", n, new Gauge(value)));
+    }
+
+    public static String getStats() {
+        return String.format("Counters:\n%s\nGauges:\n%s\nLatencies:\n%s",
+                format(counters),
+                format(gauges),
+                format(histograms));
+    }
+
+    private static String format(Map<String, ?> metrics) {
+        return new TreeMap<>(metrics).entrySet()
+                .stream()
+                .map(entry -> String.format("%s: %s", entry.getKey(), entry.getValue()))
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static <T> T register(String type, String name, T metric) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metric,
+                    new ObjectName(String.format("rekoder:type=%s,name=%s", type, ObjectName.quote(name))));
+        } catch (JMException ignored) {
+        }
+        return metric;
+    }
+
+    public interface CounterMBean {
+        long getCount();
+    }
+
+    public static class Counter implements CounterMBean {
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public String toString() {
+            return Long.toString(getCount());
+        }
+    }
+
+    public interface GaugeMBean {
+        long getValue();
+    }
+
+    public static class Gauge implements GaugeMBean {
+        private final LongSupplier value;
+
+        private Gauge(LongSupplier value) {
+            this.value = value;
+        }
+
+        @Override
+        public long getValue() {
+            return value.getAsLong();
+        }
+
+        @Override
+        public String toString() {
+            return Long.toString(getValue());
+        }
+    }
+
+    public interface HistogramMBean {
+        long getCount();
+
+        double getMeanMillis();
+
+        double getP50Millis();
+
+        double getP99Millis();
+
+        double getMaxMillis();
+    }
+
+    // log-linear buckets over microseconds: exact below 32 us, then 16 buckets per power of two (~6% error)
+    public static class Histogram implements HistogramMBean {
+        private static final int LINEAR_BUCKETS = 32;
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int LINEAR_EXPONENT = 5;
+        private static final int BUCKETS = LINEAR_BUCKETS + (Long.SIZE - LINEAR_EXPONENT) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            buckets.incrementAndGet(bucketOf(micros));
+            count.increment();
+            totalMicros.add(micros);
+            if (micros > maxMicros.get()) {
+                maxMicros.accumulateAndGet(micros, Math::max);
+            }
+        }
+
+        @Override
+        public long getCount() {
+            return count.sum();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0 : totalMicros.sum() / 1000.0 / n;
+        }
+
+        @Override
+        public double getP50Millis() {
+            return getPercentileMillis(0.50);
+        }
+
+        @Override
+        public double getP99Millis() {
+            return getPercentileMillis(0.99);
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return maxMicros.get() / 1000.0;
+        }
+
+        public double getPercentileMillis(double quantile) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= target) {
+                    return Math.min(upperBoundOf(i), maxMicros.get()) / 1000.0;
+                }
+            }
+            return getMaxMillis();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count %d, mean %.2f ms, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    getCount(), getMeanMillis(), getP50Millis(), getP99Millis(), getMaxMillis());
+        }
+
+        private static int bucketOf(long micros) {
+            if (micros < LINEAR_BUCKETS) {
+                return (int) micros;
+            }
+            int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros);
+            int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return LINEAR_BUCKETS + (exponent - LINEAR_EXPONENT) * SUB_BUCKETS + subBucket;
+        }
+
+        private static long upperBoundOf(int bucket) {
+            if (bucket < LINEAR_BUCKETS) {
+                return bucket + 1;
+            }
+            int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + LINEAR_EXPONENT;
+            int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+            return (long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package rekoder.util;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public class RateLimiter {
+    private final long intervalNanos;
+    private final double maxStoredPermits;
+    private double storedPermits;
+    private long nextFreeNanos;
+    private long acquisitions;
+    private long waitedNanos;
+    private long maxWaitNanos;
+
+    public RateLimiter(double permitsPerSecond, int maxBurst) {
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        // the request granted at nextFreeNanos is not paid from stored permits, so one less is stored
+        this.maxStoredPermits = Math.max(1, maxBurst) - 1;
+        this.storedPermits = this.maxStoredPermits;
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    public Duration acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return Duration.ofNanos(waitNanos);
+    }
+
+    public synchronized void pauseFor(Duration pause) {
+        storedPermits = 0;
+        nextFreeNanos = Math.max(nextFreeNanos, System.nanoTime() + pause.toNanos());
+    }
+
+    public synchronized String getStats() {
+        return String.format("acquired %d, waited %d ms total, %d ms max",
+                acquisitions,
+                TimeUnit.NANOSECONDS.toMillis(waitedNanos),
+                TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+    }
+
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        if (now > nextFreeNanos) {
+            storedPermits = Math.min(maxStoredPermits, storedPermits + (double) (now - nextFreeNanos) / intervalNanos);
+            nextFreeNanos = now;
+        }
+        long waitNanos = nextFreeNanos - now;
+        double fromStored = Math.min(1, storedPermits);
+        storedPermits -= fromStored;
+        nextFreeNanos += (long) ((1 - fromStored) * intervalNanos);
+        acquisitions++;
+        waitedNanos += waitNanos;
+        maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        return waitNanos;
+    }
+}
@@ -1,32 +1,210 @@
 package rekoder.util;
 
+import rekoder.jfr.JudgeRequestEvent;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 public class Util {
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 4;
+    public static final int DEFAULT_REQUEST_BURST = 4;
+    public static final int DEFAULT_MAX_BACKOFF_MILLIS = 60000;
+    public static final int DEFAULT_MAX_RETRY_AFTER_SECS = 600;
+
+    private static volatile HttpResponseCache responseCache;
+    private static final JudgeHttpTransport transport = new JudgeHttpTransport();
+    private static final Map<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    public static void setResponseCache(HttpResponseCache cache) {
+        responseCache = cache;
+    }
+
+    // closes the judge connections, requests fail afterwards
+    public static void shutdown() {
+        transport.close();
+    }
+
     public static String executeRequest(URL url, int attempts, int intervalMillis, Logger logger) throws HttpRequestAttemptOverflow {
-        for (int attempt = 0; attempt < attempts; ++attempt) {
-            InputStream is;
+        return executeRequest(url, attempts, intervalMillis, Duration.ZERO, logger);
+    }
+
+    public static String executeRequest(URL url, int attempts, int intervalMillis, Duration cacheTtl, Logger logger) throws HttpRequestAttemptOverflow {
+        return executeRequest(url, attempts, intervalMillis, cacheTtl, logger,
+                (body, charset) -> new String(body.readAllBytes(), charset));
+    }
+
+    public static <T> T executeRequest(URL url, int attempts, int intervalMillis, Duration cacheTtl, Logger logger, ResponseReader<T> reader) throws HttpRequestAttemptOverflow {
+        // fresh cache hits take no request slot and are served even while the host's circuit is open
+        HttpResponseCache cache = responseCache;
+        if (cache != null) {
             try {
-                is = url.openStream();
-                return new String(is.readAllBytes());
+                Optional<T> cached = cache.readIfFresh(url, cacheTtl, reader);
+                if (cached.isPresent()) {
+                    return cached.get();
+                }
             } catch (IOException e) {
+                logger.log(Level.INFO, String.format("Failed to read cached response, requesting it: %s, %s", url, e));
+            }
+        }
+        RateLimiter rateLimiter = getRateLimiter(url.getHost());
+        CircuitBreaker circuitBreaker = CircuitBreaker.forName("judge " + url.getHost());
+        Metrics.Histogram latency = Metrics.histogram("judge.request." + url.getHost());
+        int maxBackoffMillis = Config.getInt("rekoder.http.maxBackoffMillis", DEFAULT_MAX_BACKOFF_MILLIS);
+        Duration maxRetryAfter = Duration.ofSeconds(Config.getInt("rekoder.http.maxRetryAfterSecs", DEFAULT_MAX_RETRY_AFTER_SECS));
+        for (int attempt = 0; attempt < attempts; ++attempt) {
+            final int failedAttempt = attempt;
+            long delayMillis;
+            try {
+                // an open circuit fails before taking a request slot, so a dead host fails every URL right away
+                circuitBreaker.acquire();
+                Duration waited;
                 try {
-                    Thread.sleep(intervalMillis, 0);
-                    logger.log(Level.INFO, String.format("Attempting again: %s", url));
-                } catch (InterruptedException ignored) {
-                    throw new HttpRequestAttemptOverflow(url.toString());
+                    waited = rateLimiter.acquire();
+                } catch (InterruptedException e) {
+                    circuitBreaker.release();
+                    throw e;
                 }
+                Metrics.histogram("judge.rateLimitWait." + url.getHost()).record(waited.toNanos());
+                if (waited.toMillis() >= 1000) {
+                    logger.log(Level.INFO, String.format("Waited %d ms for a request slot: %s", waited.toMillis(), url));
+                }
+                T result = read(url, attempt, cacheTtl, reader, circuitBreaker, latency);
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (CircuitBreakerOpen e) {
+                throw new HttpRequestAttemptOverflow(e);
+            } catch (HttpStatusException e) {
+                if (!e.isRetryable()) {
+                    circuitBreaker.onSuccess();
+                    throw new HttpRequestAttemptOverflow(e);
+                }
+                circuitBreaker.onFailure();
+                Optional<Duration> retryAfter = e.getRetryAfter()
+                        .map(requested -> requested.compareTo(maxRetryAfter) > 0 ? maxRetryAfter : requested);
+                retryAfter.ifPresent(rateLimiter::pauseFor);
+                delayMillis = retryAfter.map(Duration::toMillis)
+                        .orElseGet(() -> backoffMillis(intervalMillis, maxBackoffMillis, failedAttempt));
+            } catch (IOException e) {
+                circuitBreaker.onFailure();
+                delayMillis = backoffMillis(intervalMillis, maxBackoffMillis, attempt);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new HttpRequestAttemptOverflow(url.toString());
+            }
+            if (attempt + 1 == attempts) {
+                break;
+            }
+            Metrics.counter("judge.retries." + url.getHost()).increment();
+            try {
+                logger.log(Level.INFO, String.format("Attempting again in %d ms: %s", delayMillis, url));
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+                throw new HttpRequestAttemptOverflow(url.toString());
             }
         }
+        Metrics.counter("judge.failures." + url.getHost()).increment();
         throw new HttpRequestAttemptOverflow(url.toString());
     }
 
+    private static <T> T read(URL url, int attempt, Duration cacheTtl, ResponseReader<T> reader, CircuitBreaker circuitBreaker, Metrics.Histogram latency) throws IOException {
+        JudgeRequestEvent event = new JudgeRequestEvent();
+        event.begin();
+        long start = System.nanoTime();
+        AtomicLong bytes = new AtomicLong();
+        ResponseReader<T> countingReader = (body, charset) -> reader.read(new CountingInputStream(body, bytes), charset);
+        try {
+            T result;
+            HttpResponseCache cache = responseCache;
+            if (cache != null) {
+                result = cache.read(url, cacheTtl, countingReader);
+            } else {
+                try (JudgeHttpTransport.Response response = send(url, Map.of())) {
+                    result = countingReader.read(response.getBody(), response.getCharset());
+                }
+            }
+            event.outcome = "ok";
+            return result;
+        } catch (HttpStatusException e) {
+            event.outcome = "HTTP " + e.getStatusCode();
+            throw e;
+        } catch (IOException e) {
+            event.outcome = e.getClass().getSimpleName();
+            throw e;
+        } catch (RuntimeException e) {
+            // the host answered, a reader failure is a parser bug or a page layout change
+            event.outcome = e.getClass().getSimpleName();
+            circuitBreaker.release();
+            throw e;
+        } finally {
+            latency.recordSince(start);
+            if (event.shouldCommit()) {
+                event.host = url.getHost();
+                event.url = url.toString();
+                event.attempt = attempt;
+                event.bytes = bytes.get();
+                event.commit();
+            }
+        }
+    }
+
+    public static String getRateLimiterStats() {
+        return rateLimiters.entrySet()
+                .stream()
+                .map(entry -> String.format("%s: %s", entry.getKey(), entry.getValue().getStats()))
+                .collect(Collectors.joining("\n"));
+    }
+
+    static JudgeHttpTransport.Response send(URL url, Map<String, String> headers) throws IOException {
+        return transport.get(url, headers);
+    }
+
+    private static RateLimiter getRateLimiter(String host) {
+        return rateLimiters.computeIfAbsent(host, h -> new RateLimiter(
+                Config.getDouble("rekoder.http.requestsPerSecond." + h,
+                        Config.getDouble("rekoder.http.requestsPerSecond", DEFAULT_REQUESTS_PER_SECOND)),
+                Config.getInt("rekoder.http.requestBurst." + h,
+                        Config.getInt("rekoder.http.requestBurst", DEFAULT_REQUEST_BURST))));
+    }
+
+    private static long backoffMillis(int intervalMillis, int maxBackoffMillis, int attempt) {
+        long backoff = Math.min(maxBackoffMillis, (long) intervalMillis << Math.min(attempt, 20));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    static Duration parseRetryAfter(String retryAfter) {
+        if (retryAfter == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim())));
+        } catch (NumberFormatException ignored) {
+        }
+        try {
+            Duration untilDate = Duration.between(
+                    ZonedDateTime.now(), ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+            return untilDate.isNegative() ? Duration.ZERO : untilDate;
+        } catch (DateTimeParseException ignored) {
+            return null;
+        }
+    }
+
     public static String formatThrowable(Throwable t) {
         StringWriter sw = new StringWriter();
         PrintWriter pw = new PrintWriter(sw);
@@ -39,4 +217,8 @@ public class Util {
             throw new UnsupportedPageFormat("Unsupported page format");
         }
     }
+
+    public interface ResponseReader<T> {
+        T read(InputStream body, Charset charset) throws IOException;
+    }
 }
@@ -0,0 +1,142 @@
+package rekoder.api;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import rekoder.primitive.Problem;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class RekoderApiOnlineTest {
+    private static final Logger LOGGER = Logger.getAnonymousLogger();
+    private static final Problem LARGE_PROBLEM = new Problem(
+            "A + B Problem",
+            "Add two numbers. ".repeat(200),
+            "Two integers a and b",
+            "Their sum",
+            List.of(new Problem.Test("1 2", "3")),
+            "Test Round",
+            "https://judge.test/problem/A");
+
+    private static HttpServer server;
+    private static final AtomicReference<String> contentEncoding = new AtomicReference<>();
+    private static final AtomicReference<byte[]> requestBody = new AtomicReference<>();
+    private static final Queue<String> requestBodies = new ConcurrentLinkedQueue<>();
+
+    @BeforeAll
+    static void startBackend() throws IOException {
+        LOGGER.setLevel(Level.OFF);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                contentEncoding.set(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+                requestBody.set(exchange.getRequestBody().readAllBytes());
+                requestBodies.add(new String(requestBody.get(), StandardCharsets.UTF_8));
+                byte[] response = "{\"id\": 7}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+            }
+        });
+        server.start();
+        System.setProperty("rekoder.api.url", "http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopBackend() {
+        server.stop(0);
+        System.clearProperty("rekoder.api.url");
+    }
+
+    @AfterEach
+    void clearGzipRequests() {
+        System.clearProperty("rekoder.api.gzipRequests");
+        requestBodies.clear();
+    }
+
+    @Test
+    void gzipsLargeRequestBodiesWhenEnabled() throws IOException {
+        System.setProperty("rekoder.api.gzipRequests", "true");
+        try (RekoderApi api = new RekoderApiOnline(LOGGER)) {
+            assertEquals(7, api.addProblem("user", LARGE_PROBLEM));
+        }
+        assertEquals("gzip", contentEncoding.get());
+        try (GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(requestBody.get()))) {
+            assertEquals(RekoderApiOnline.toJson(LARGE_PROBLEM), new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void keepsSmallRequestBodiesPlainWhenEnabled() throws IOException {
+        System.setProperty("rekoder.api.gzipRequests", "true");
+        try (RekoderApi api = new RekoderApiOnline(LOGGER)) {
+            api.putProblem(1, 2);
+        }
+        assertNull(contentEncoding.get());
+        assertEquals("{\"problemId\":2}", new String(requestBody.get(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void sendsPlainRequestBodiesWhenDisabled() throws IOException {
+        try (RekoderApi api = new RekoderApiOnline(LOGGER)) {
+            assertEquals(7, api.addProblem("user", LARGE_PROBLEM));
+        }
+        assertNull(contentEncoding.get());
+        assertEquals(RekoderApiOnline.toJson(LARGE_PROBLEM), new String(requestBody.get(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void putsEveryProblemOfBatchWithoutExecutor() throws IOException {
+        try (RekoderApi api = new RekoderApiOnline(LOGGER)) {
+            api.putProblems(1, List.of(10, 11, 12));
+        }
+        assertEquals(List.of("{\"problemId\":10}", "{\"problemId\":11}", "{\"problemId\":12}"), List.copyOf(requestBodies));
+    }
+
+    @Test
+    void sendsBatchOnSharedExecutor() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (RekoderApi api = new RekoderApiOnline(LOGGER)) {
+            api.setBatchExecutor(executor);
+            assertEquals(List.of(7, 7, 7), api.addFolders(1, List.of("a", "b", "c")));
+            api.putProblems(1, List.of(10, 11, 12, 13, 14));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(8, requestBodies.size());
+    }
+
+    @Test
+    void completesBatchCalledFromThreadOfItsExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (RekoderApi api = new RekoderApiOnline(LOGGER)) {
+            api.setBatchExecutor(executor);
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> executor.submit(() -> {
+                api.putProblems(1, List.of(10, 11, 12, 13));
+                return null;
+            }).get());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(4, requestBodies.size());
+    }
+}
@@ -0,0 +1,39 @@
+package rekoder.bot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SyncSchedulerTest {
+    private final SyncScheduler scheduler = new SyncScheduler(List.of("Judge"), judge -> {
+    }, Logger.getAnonymousLogger());
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void startsPausedByDefault() {
+        assertEquals("paused, interval PT30M", scheduler.getState("Judge"));
+    }
+
+    @Test
+    void halvesIntervalOnlyAfterNewProblems() {
+        scheduler.onUpdateFinished("Judge", 3);
+        assertEquals("paused, interval PT15M", scheduler.getState("Judge"));
+
+        scheduler.onUpdateFinished("Judge", 0);
+        assertEquals("paused, interval PT30M", scheduler.getState("Judge"));
+    }
+
+    @Test
+    void backsOffAfterFailedUpdate() {
+        scheduler.onUpdateFinished("Judge", -1);
+        assertEquals("paused, interval PT1H", scheduler.getState("Judge"));
+    }
+}
@@ -0,0 +1,157 @@
+package rekoder.bot;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rekoder.api.AsyncRekoderApi;
+import rekoder.bot.judges.JudgeInteractor;
+import rekoder.primitive.Problem;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpdatePipelineTest {
+    private static final Logger LOGGER = Logger.getAnonymousLogger();
+
+    @TempDir
+    Path stateDir;
+
+    private ExecutorService dispatcher;
+    private UploadedProblemIndex uploadedProblems;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        LOGGER.setLevel(Level.OFF);
+        dispatcher = Executors.newSingleThreadExecutor();
+        uploadedProblems = new UploadedProblemIndex(stateDir.resolve("uploaded.idx"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        dispatcher.shutdownNow();
+        uploadedProblems.close();
+    }
+
+    @Test
+    void putsAddedProblemsInOneBatchPerFolder() throws IOException {
+        RecordingApi api = new RecordingApi(false);
+
+        UpdatePipeline.Summary summary = pipeline(api).run(new StubInteractor(2, 20), urls(40));
+
+        assertEquals(40, summary.uploaded);
+        assertEquals(0, summary.failed);
+        assertEquals(2, api.putBatches.get());
+        assertEquals(40, api.put.values().stream().mapToInt(List::size).sum());
+    }
+
+    @Test
+    void failsUpdateAndStopsFetchWhenUploadStageCrashes() {
+        RecordingApi api = new RecordingApi(true);
+        StubInteractor interactor = new StubInteractor(1, 1000);
+
+        IOException e = assertTimeoutPreemptively(Duration.ofSeconds(20),
+                () -> assertThrows(IOException.class, () -> pipeline(api).run(interactor, urls(1000))));
+
+        assertTrue(e.getMessage().startsWith("Upload stage of Stub failed"), e.getMessage());
+        assertTrue(interactor.fetched.get() < 1000, "fetched " + interactor.fetched.get());
+    }
+
+    private UpdatePipeline pipeline(AsyncRekoderApi api) throws IOException {
+        FolderRegistry folders = new FolderRegistry(stateDir.resolve("folders.properties"), name -> name);
+        return new UpdatePipeline(api, dispatcher, uploadedProblems, folders, "user", 1, LOGGER);
+    }
+
+    private static List<String> urls(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "https://judge.test/problem/" + i).collect(Collectors.toList());
+    }
+
+    private static class StubInteractor extends JudgeInteractor {
+        private final int contests;
+        private final int problemsPerContest;
+        private final AtomicInteger fetched = new AtomicInteger();
+
+        StubInteractor(int contests, int problemsPerContest) {
+            super(LOGGER, "Stub");
+            this.contests = contests;
+            this.problemsPerContest = problemsPerContest;
+        }
+
+        @Override
+        public Problem getProblemByUrl(String url) {
+            fetched.incrementAndGet();
+            int index = Integer.parseInt(url.substring(url.lastIndexOf('/') + 1));
+            return new Problem("Problem " + index, "Statement " + index, "input", "output", List.of(),
+                    "Round " + (index / problemsPerContest) % contests, url);
+        }
+
+        @Override
+        public List<String> getProblemUrlsInInterval(LocalDateTime begin, LocalDateTime end, int limit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class RecordingApi implements AsyncRekoderApi {
+        private final boolean crashOnAddFolder;
+        private final AtomicInteger nextId = new AtomicInteger(100);
+        private final AtomicInteger putBatches = new AtomicInteger();
+        private final Map<Integer, List<Integer>> put = new ConcurrentHashMap<>();
+
+        RecordingApi(boolean crashOnAddFolder) {
+            this.crashOnAddFolder = crashOnAddFolder;
+        }
+
+        @Override
+        public CompletableFuture<Integer> addProblem(String user, Problem problem) {
+            return CompletableFuture.completedFuture(nextId.incrementAndGet());
+        }
+
+        @Override
+        public CompletableFuture<Void> putProblem(int folderId, int problemId) {
+            return putProblems(folderId, List.of(problemId));
+        }
+
+        @Override
+        public CompletableFuture<Void> putProblems(int folderId, List<Integer> problemIds) {
+            putBatches.incrementAndGet();
+            put.merge(folderId, problemIds, (a, b) -> {
+                List<Integer> merged = new ArrayList<>(a);
+                merged.addAll(b);
+                return merged;
+            });
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Integer> addFolder(int parentFolder, String name) {
+            if (crashOnAddFolder) {
+                throw new IllegalStateException("addFolder crashed");
+            }
+            return CompletableFuture.completedFuture(nextId.incrementAndGet());
+        }
+
+        @Override
+        public CompletableFuture<Integer> getUserRootFolderId(String user) {
+            return CompletableFuture.completedFuture(1);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package rekoder.util;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpResponseCacheTest {
+    private static final int PAGE_SIZE = 100;
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    private static HttpServer server;
+    private static ExecutorService serverExecutor;
+    private static final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicInteger> notModified = new ConcurrentHashMap<>();
+    private static volatile CountDownLatch slowPageReleased = new CountDownLatch(0);
+
+    @TempDir
+    Path cacheDir;
+
+    @BeforeAll
+    static void startJudge() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                String path = exchange.getRequestURI().getPath();
+                requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+                if (path.startsWith("/slow")) {
+                    slowPageReleased.await(10, TimeUnit.SECONDS);
+                }
+                String etag = "\"" + Integer.toHexString(path.hashCode()) + "\"";
+                exchange.getResponseHeaders().set("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+                byte[] page = page(path).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+                exchange.sendResponseHeaders(200, page.length);
+                exchange.getResponseBody().write(page);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopJudge() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void revalidatesStaleEntryAndRefreshesStoredAt() throws Exception {
+        URL url = url("/revalidated");
+        Duration ttl = Duration.ofMillis(300);
+        HttpResponseCache cache = new HttpResponseCache(cacheDir, 10_000);
+
+        assertEquals(page("/revalidated"), cache.get(url, ttl));
+        Thread.sleep(ttl.toMillis() + 100);
+        assertFalse(cache.readIfFresh(url, ttl, HttpResponseCacheTest::readString).isPresent());
+
+        assertEquals(page("/revalidated"), cache.get(url, ttl));
+        assertEquals(2, requests("/revalidated"));
+        assertEquals(1, notModified.get("/revalidated").get());
+
+        // the refreshed storedAt is both in memory and in the entry on disk
+        assertEquals(page("/revalidated"), cache.readIfFresh(url, ttl, HttpResponseCacheTest::readString).orElse(null));
+        HttpResponseCache reloaded = new HttpResponseCache(cacheDir, 10_000);
+        assertEquals(page("/revalidated"), reloaded.readIfFresh(url, ttl, HttpResponseCacheTest::readString).orElse(null));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntriesOverMaxBytes() throws IOException {
+        HttpResponseCache cache = new HttpResponseCache(cacheDir, 2 * PAGE_SIZE + PAGE_SIZE / 2);
+
+        cache.get(url("/evicted/a"), HOUR);
+        cache.get(url("/evicted/b"), HOUR);
+        // reading a makes b the least recently used entry
+        assertTrue(cache.readIfFresh(url("/evicted/a"), HOUR, HttpResponseCacheTest::readString).isPresent());
+        cache.get(url("/evicted/c"), HOUR);
+
+        assertTrue(cache.readIfFresh(url("/evicted/a"), HOUR, HttpResponseCacheTest::readString).isPresent());
+        assertFalse(cache.readIfFresh(url("/evicted/b"), HOUR, HttpResponseCacheTest::readString).isPresent());
+        assertTrue(cache.readIfFresh(url("/evicted/c"), HOUR, HttpResponseCacheTest::readString).isPresent());
+        assertEquals(2, bodyFiles());
+
+        assertEquals(page("/evicted/b"), cache.get(url("/evicted/b"), HOUR));
+        assertEquals(2, requests("/evicted/b"));
+        assertEquals(2, bodyFiles());
+    }
+
+    @Test
+    void reloadsEntriesFromDiskInNewInstance() throws IOException {
+        URL url = url("/reloaded");
+        assertEquals(page("/reloaded"), new HttpResponseCache(cacheDir, 10_000).get(url, HOUR));
+
+        HttpResponseCache reloaded = new HttpResponseCache(cacheDir, 10_000);
+        assertEquals(page("/reloaded"), reloaded.readIfFresh(url, HOUR, HttpResponseCacheTest::readString).orElse(null));
+        assertEquals(page("/reloaded"), reloaded.get(url, HOUR));
+        assertEquals(1, requests("/reloaded"));
+    }
+
+    @Test
+    void sendsOneRequestForConcurrentReadsOfSameUrl() throws Exception {
+        URL url = url("/slow/coalesced");
+        HttpResponseCache cache = new HttpResponseCache(cacheDir, 10_000);
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+        slowPageReleased = new CountDownLatch(1);
+        try {
+            List<Future<String>> pages = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                pages.add(readers.submit(() -> cache.get(url, HOUR)));
+            }
+            // every reader is waiting on the first request before it is answered
+            Thread.sleep(300);
+            slowPageReleased.countDown();
+
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                for (Future<String> page : pages) {
+                    assertEquals(page("/slow/coalesced"), page.get());
+                }
+            });
+            assertEquals(1, requests("/slow/coalesced"));
+        } finally {
+            slowPageReleased.countDown();
+            readers.shutdownNow();
+        }
+    }
+
+    private int bodyFiles() throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDir, "*.body")) {
+            for (Path ignored : files) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int requests(String path) {
+        return requests.getOrDefault(path, new AtomicInteger()).get();
+    }
+
+    private static String page(String path) {
+        String page = "<html>" + path + "</html>";
+        return page + " ".repeat(PAGE_SIZE - page.length());
+    }
+
+    private static String readString(InputStream body, Charset charset) throws IOException {
+        return new String(body.readAllBytes(), charset);
+    }
+
+    private static URL url(String path) throws IOException {
+        return new URL(String.format("http://127.0.0.1:%d%s", server.getAddress().getPort(), path));
+    }
+}
@@ -0,0 +1,204 @@
+package rekoder.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonStreamReaderTest {
+    private static final int BUFFER_SIZE = 8192;
+
+    @Test
+    void readsStringEscapes() throws IOException {
+        JsonStreamReader reader = reader("[\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\", \"\\u0041\\u00e9\\u4E2D\", \"\\ud83d\\ude00\"]");
+
+        reader.beginArray();
+        assertEquals("a\"b\\c/d\b\f\n\r\t", reader.nextString());
+        assertEquals("A\u00e9\u4e2d", reader.nextString());
+        assertEquals("\ud83d\ude00", reader.nextString());
+        reader.endArray();
+        assertEquals(JsonStreamReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    void readsNestedObjectsAndArrays() throws IOException {
+        JsonStreamReader reader = reader("{\"status\": \"OK\", \"result\": {\"problems\": [{\"contestId\": 1520, \"index\": \"A\","
+                + " \"tags\": [\"math\", \"greedy\"], \"rated\": true, \"points\": null}, {\"contestId\": -7, \"tags\": []}]}}");
+
+        reader.beginObject();
+        assertEquals("status", reader.nextName());
+        assertEquals("OK", reader.nextString());
+        assertEquals("result", reader.nextName());
+        reader.beginObject();
+        assertEquals("problems", reader.nextName());
+        reader.beginArray();
+
+        reader.beginObject();
+        assertEquals("contestId", reader.nextName());
+        assertEquals(1520, reader.nextLong());
+        assertEquals("index", reader.nextName());
+        assertEquals("A", reader.nextString());
+        assertEquals("tags", reader.nextName());
+        reader.beginArray();
+        List<String> tags = new ArrayList<>();
+        while (reader.hasNext()) {
+            tags.add(reader.nextString());
+        }
+        reader.endArray();
+        assertEquals(List.of("math", "greedy"), tags);
+        assertEquals("rated", reader.nextName());
+        assertTrue(reader.nextBoolean());
+        assertEquals("points", reader.nextName());
+        assertEquals(JsonStreamReader.Token.NULL, reader.peek());
+        reader.nextNull();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+
+        reader.beginObject();
+        assertEquals("contestId", reader.nextName());
+        assertEquals(-7, reader.nextLong());
+        assertEquals("tags", reader.nextName());
+        reader.beginArray();
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        reader.endObject();
+
+        reader.endArray();
+        reader.endObject();
+        reader.endObject();
+        assertEquals(JsonStreamReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    void skipsNestedValues() throws IOException {
+        JsonStreamReader reader = reader("{\"skipped\": {\"a\": [1, {\"b\": [true, null, \"]}\"]}], \"c\": {}},"
+                + " \"list\": [[1, [2]], \"x\", false], \"kept\": 42}");
+
+        reader.beginObject();
+        assertEquals("skipped", reader.nextName());
+        reader.skipValue();
+        assertEquals("list", reader.nextName());
+        reader.beginArray();
+        reader.skipValue();
+        assertEquals("x", reader.nextString());
+        reader.skipValue();
+        reader.endArray();
+        assertEquals("kept", reader.nextName());
+        assertEquals(42, reader.nextLong());
+        reader.endObject();
+        assertEquals(JsonStreamReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    void readsLiteralAtEndOfDocument() throws IOException {
+        assertEquals(12345, reader("12345").nextLong());
+        assertTrue(reader("true").nextBoolean());
+        assertFalse(reader(" false").nextBoolean());
+
+        JsonStreamReader reader = reader("null");
+        reader.nextNull();
+        assertEquals(JsonStreamReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    void readsLiteralsSplitAcrossBufferBoundary() throws IOException {
+        for (int offset = 1; offset < 5; offset++) {
+            // the literal starts offset chars before the end of the first buffer fill
+            String padding = " ".repeat(BUFFER_SIZE - 1 - offset);
+            JsonStreamReader reader = reader("[" + padding + "true, 123456789, false, null, \"s\"]");
+
+            reader.beginArray();
+            assertTrue(reader.nextBoolean(), "offset " + offset);
+            assertEquals(123456789, reader.nextLong());
+            assertFalse(reader.nextBoolean());
+            reader.nextNull();
+            assertEquals("s", reader.nextString());
+            reader.endArray();
+        }
+    }
+
+    @Test
+    void readsDocumentHandedOutInSmallChunks() throws IOException {
+        JsonStreamReader reader = new JsonStreamReader(new ChunkedReader("{\"name\": \"a\\u0062c\", \"values\": [10, -20, true]}", 1));
+
+        reader.beginObject();
+        assertEquals("name", reader.nextName());
+        assertEquals("abc", reader.nextString());
+        assertEquals("values", reader.nextName());
+        reader.beginArray();
+        assertEquals(10, reader.nextLong());
+        assertEquals(-20, reader.nextLong());
+        assertTrue(reader.nextBoolean());
+        reader.endArray();
+        reader.endObject();
+        assertEquals(JsonStreamReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertMalformed("Unexpected character '@'", r -> r.peek(), "@");
+        assertMalformed("Expected ',' but was '2'", r -> {
+            r.beginArray();
+            r.nextLong();
+            r.nextLong();
+        }, "[1 2]");
+        assertMalformed("Expected ':' but was '1'", r -> {
+            r.beginObject();
+            r.nextName();
+            r.nextLong();
+        }, "{\"a\" 1}");
+        assertMalformed("Expected '\"' but was 'a'", r -> {
+            r.beginObject();
+            r.nextName();
+        }, "{a: 1}");
+        assertMalformed("Unterminated string", JsonStreamReader::nextString, "\"abc");
+        assertMalformed("Unterminated escape sequence", JsonStreamReader::nextString, "\"abc\\");
+        assertMalformed("Malformed unicode escape", JsonStreamReader::nextString, "\"\\u12G4\"");
+        assertMalformed("Expected a boolean but was 'tru'", JsonStreamReader::nextBoolean, "tru");
+        assertMalformed("Expected null but was 'nul'", JsonStreamReader::nextNull, "nul");
+        assertMalformed("Expected a long but was '1.5'", JsonStreamReader::nextLong, "1.5");
+        assertMalformed("Expected a number but was BEGIN_ARRAY", JsonStreamReader::nextLong, "[]");
+        assertMalformed("Expected a string but was NULL", JsonStreamReader::nextString, "null");
+        assertMalformed("Expected BEGIN_OBJECT but was BEGIN_ARRAY", JsonStreamReader::beginObject, "[]");
+        assertMalformed("Unexpected end of document", JsonStreamReader::skipValue, "");
+        assertMalformed("Expected ',' but was 'end of document'", r -> {
+            r.beginArray();
+            r.nextLong();
+            r.peek();
+        }, "[1");
+    }
+
+    private static void assertMalformed(String message, ReaderAction action, String json) {
+        IOException e = assertThrows(IOException.class, () -> action.run(reader(json)), json);
+        assertEquals("Malformed JSON: " + message, e.getMessage(), json);
+    }
+
+    private static JsonStreamReader reader(String json) {
+        return new JsonStreamReader(new StringReader(json));
+    }
+
+    private interface ReaderAction {
+        void run(JsonStreamReader reader) throws IOException;
+    }
+
+    private static class ChunkedReader extends StringReader {
+        private final int chunk;
+
+        ChunkedReader(String s, int chunk) {
+            super(s);
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return super.read(buffer, offset, Math.min(length, chunk));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package rekoder.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JudgeHttpTransportTest {
+    private static final String PAGE = "<html><body>" + "Problem statement. ".repeat(500) + "</body></html>";
+
+    private HttpServer server;
+    private JudgeHttpTransport transport;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+        transport = new JudgeHttpTransport(Duration.ofSeconds(5), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.close();
+        server.stop(0);
+    }
+
+    @Test
+    void decodesGzipResponse() throws IOException {
+        AtomicReference<String> acceptEncoding = new AtomicReference<>();
+        serve("/gzip", exchange -> {
+            acceptEncoding.set(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            respond(exchange, "gzip", gzip(PAGE.getBytes(StandardCharsets.UTF_8)));
+        });
+
+        try (JudgeHttpTransport.Response response = transport.get(url("/gzip"), Map.of())) {
+            assertEquals(200, response.getStatusCode());
+            assertEquals(PAGE, new String(response.getBody().readAllBytes(), response.getCharset()));
+        }
+        assertEquals("gzip, deflate", acceptEncoding.get());
+    }
+
+    @Test
+    void decodesDeflateResponse() throws IOException {
+        serve("/deflate", exchange -> respond(exchange, "deflate", deflate(PAGE.getBytes(StandardCharsets.UTF_8))));
+
+        try (JudgeHttpTransport.Response response = transport.get(url("/deflate"), Map.of())) {
+            assertEquals(PAGE, new String(response.getBody().readAllBytes(), response.getCharset()));
+        }
+    }
+
+    @Test
+    void passesUnencodedResponseThrough() throws IOException {
+        byte[] page = PAGE.getBytes(StandardCharsets.UTF_8);
+        serve("/identity", exchange -> respond(exchange, null, page));
+
+        try (JudgeHttpTransport.Response response = transport.get(url("/identity"), Map.of())) {
+            assertArrayEquals(page, response.getBody().readAllBytes());
+        }
+    }
+
+    @Test
+    void decodesGzipResponseWhileItIsStreamed() throws IOException {
+        byte[] head = "<html><body>first part".getBytes(StandardCharsets.UTF_8);
+        byte[] tail = " and the rest</body></html>".getBytes(StandardCharsets.UTF_8);
+        CountDownLatch headRead = new CountDownLatch(1);
+        AtomicBoolean headReadBeforeTail = new AtomicBoolean();
+        serve("/stream", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody();
+                 GZIPOutputStream gzip = new GZIPOutputStream(body, true)) {
+                gzip.write(head);
+                gzip.flush();
+                try {
+                    headReadBeforeTail.set(headRead.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                gzip.write(tail);
+            }
+        });
+
+        try (JudgeHttpTransport.Response response = transport.get(url("/stream"), Map.of())) {
+            InputStream body = response.getBody();
+            byte[] received = assertTimeoutPreemptively(Duration.ofSeconds(3), () -> body.readNBytes(head.length));
+            assertArrayEquals(head, received);
+            headRead.countDown();
+            assertArrayEquals(tail, body.readAllBytes());
+        }
+        assertTrue(headReadBeforeTail.get());
+    }
+
+    @Test
+    void failsBodyReadThatOutlastsReadTimeout() throws IOException {
+        CountDownLatch finished = new CountDownLatch(1);
+        serve("/stalled", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            exchange.getResponseBody().write("<html><body>".getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseBody().flush();
+            try {
+                finished.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        transport.close();
+        transport = new JudgeHttpTransport(Duration.ofSeconds(5), Duration.ofMillis(300));
+
+        try (JudgeHttpTransport.Response response = transport.get(url("/stalled"), Map.of())) {
+            assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> assertThrows(HttpTimeoutException.class, () -> response.getBody().readAllBytes()));
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    @Test
+    void rejectsRequestsOnceClosed() throws IOException {
+        serve("/identity", exchange -> respond(exchange, null, new byte[0]));
+        transport.get(url("/identity"), Map.of()).close();
+
+        transport.close();
+
+        assertThrows(IOException.class, () -> transport.get(url("/identity"), Map.of()));
+    }
+
+    private void serve(String path, HttpHandler handler) {
+        server.createContext(path, exchange -> {
+            try (exchange) {
+                handler.handle(exchange);
+            }
+        });
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL(String.format("http://127.0.0.1:%d%s", server.getAddress().getPort(), path));
+    }
+
+    private static void respond(HttpExchange exchange, String encoding, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        if (encoding != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(compressed)) {
+            deflate.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+}
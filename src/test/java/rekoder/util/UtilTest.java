@@ -0,0 +1,80 @@
+package rekoder.util;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class UtilTest {
+    private static final Logger LOGGER = Logger.getAnonymousLogger();
+
+    private static HttpServer server;
+    private static final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeAll
+    static void startJudge() throws IOException {
+        LOGGER.setLevel(Level.OFF);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                requests.incrementAndGet();
+                byte[] page = "<html></html>".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, page.length);
+                exchange.getResponseBody().write(page);
+            }
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopJudge() {
+        server.stop(0);
+    }
+
+    @Test
+    void failsFastOnOpenCircuitWithoutTakingRequestSlots() {
+        // a host of its own, limited to one request per minute
+        System.setProperty("rekoder.http.requestsPerSecond.open.circuit.test", "0.0167");
+        System.setProperty("rekoder.http.requestBurst.open.circuit.test", "1");
+        CircuitBreaker circuitBreaker = CircuitBreaker.forName("judge open.circuit.test");
+        for (int i = 0; i < CircuitBreaker.DEFAULT_FAILURE_THRESHOLD; i++) {
+            circuitBreaker.onFailure();
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 20; i++) {
+                URL url = new URL("http://open.circuit.test/problem/" + i);
+                assertThrows(HttpRequestAttemptOverflow.class, () -> Util.executeRequest(url, 3, 10, LOGGER));
+            }
+        });
+    }
+
+    @Test
+    void keepsCircuitClosedWhenResponseReaderFails() throws IOException {
+        URL url = new URL(String.format("http://127.0.0.1:%d/problem", server.getAddress().getPort()));
+        int before = requests.get();
+
+        for (int i = 0; i < 2 * CircuitBreaker.DEFAULT_FAILURE_THRESHOLD; i++) {
+            assertThrows(IllegalStateException.class, () -> Util.executeRequest(url, 1, 10, Duration.ZERO, LOGGER,
+                    (body, charset) -> {
+                        throw new IllegalStateException("Unsupported layout");
+                    }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, CircuitBreaker.forName("judge 127.0.0.1").getState());
+        assertEquals(2 * CircuitBreaker.DEFAULT_FAILURE_THRESHOLD, requests.get() - before);
+    }
+}